@@ -0,0 +1,45 @@
+package com.ednh.benchmark;
+
+import com.ednh.entity.Notification;
+import com.ednh.entity.User;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Representative entities shared by the benchmarks
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Notification notification(int i) {
+        LocalDateTime now = LocalDateTime.now();
+        return Notification.builder()
+                .id(new ObjectId().toHexString())
+                .appId("billing")
+                .userId("user-" + i)
+                .title("Invoice #" + i + " is ready")
+                .message("Your invoice for October is ready to download. The amount due is 42.00 EUR.")
+                .type(Notification.NotificationType.INFO)
+                .priority(Notification.Priority.NORMAL)
+                .data(Map.of("invoiceId", "inv-" + i, "amount", 42.0, "currency", "EUR"))
+                .deliveredAt(now)
+                .createdAt(now)
+                .changeVersion((long) i)
+                .createdVersion((long) i)
+                .build();
+    }
+
+    static User user(String id) {
+        return User.builder()
+                .id(id)
+                .username("user-" + id)
+                .email(id + "@example.com")
+                .password("unused")
+                .role(User.Role.USER)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.ednh.benchmark;
+
+import com.ednh.entity.Notification;
+import com.ednh.entity.UserPreferences;
+import com.ednh.service.UserPreferencesService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preference filtering run for every incoming notification
+ * Default preferences pass every check; restrictive preferences walk the muted app, type
+ * and keyword lists and an inactive quiet-hours window before delivering.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class NotificationFilterBenchmark {
+
+    private UserPreferencesService preferencesService;
+    private Notification notification;
+    private UserPreferences defaultPreferences;
+    private UserPreferences restrictivePreferences;
+
+    @Setup
+    public void setUp() {
+        // Filtering never touches the repository
+        preferencesService = new UserPreferencesService(null);
+        notification = BenchmarkData.notification(1);
+
+        defaultPreferences = UserPreferences.builder()
+                .userId("user-1")
+                .minimumPriority(Notification.Priority.LOW)
+                .build();
+
+        LocalTime quietStart = LocalTime.now().plusHours(2);
+        restrictivePreferences = UserPreferences.builder()
+                .userId("user-1")
+                .minimumPriority(Notification.Priority.NORMAL)
+                .mutedApps(List.of("marketing", "social", "newsletter", "surveys"))
+                .mutedTypes(List.of(Notification.NotificationType.WARNING))
+                .mutedKeywords(List.of("discount", "sale", "weekly digest", "reminder", "webinar"))
+                .quietHoursEnabled(true)
+                .quietHoursStart(quietStart)
+                .quietHoursEnd(quietStart.plusHours(1))
+                .build();
+    }
+
+    @Benchmark
+    public boolean defaultPreferences() {
+        return preferencesService.shouldDeliverNotification(notification, defaultPreferences);
+    }
+
+    @Benchmark
+    public boolean restrictivePreferences() {
+        return preferencesService.shouldDeliverNotification(notification, restrictivePreferences);
+    }
+}
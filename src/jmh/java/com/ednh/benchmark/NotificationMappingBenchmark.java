@@ -0,0 +1,41 @@
+package com.ednh.benchmark;
+
+import com.ednh.dto.response.NotificationResponse;
+import com.ednh.entity.Notification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a single notification to its response DTO, as done for each feed entry
+ * Kept apart from the feed benchmarks, whose page size does not apply here
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class NotificationMappingBenchmark {
+
+    private Notification notification;
+
+    @Setup
+    public void setUp() {
+        notification = BenchmarkData.notification(1);
+    }
+
+    @Benchmark
+    public NotificationResponse fromNotification() {
+        return NotificationResponse.fromNotification(notification);
+    }
+}
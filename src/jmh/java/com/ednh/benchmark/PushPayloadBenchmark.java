@@ -0,0 +1,63 @@
+package com.ednh.benchmark;
+
+import com.ednh.dto.response.NotificationPushPayload;
+import com.ednh.entity.Notification;
+import com.ednh.websocket.PushPayloadCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Real-time push encoding: the full entity as the STOMP converter rendered it before the
+ * compact payload, against compact JSON and CBOR including the DTO mapping
+ * Payload sizes for the same notification shape are pinned in PushPayloadCodecTest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class PushPayloadBenchmark {
+
+    private ObjectMapper objectMapper;
+    private PushPayloadCodec codec;
+    private Notification notification;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        codec = new PushPayloadCodec(objectMapper);
+        notification = BenchmarkData.notification(1);
+    }
+
+    @Benchmark
+    public byte[] entityJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(notification);
+    }
+
+    @Benchmark
+    public byte[] compactJson() {
+        return codec.toJson(NotificationPushPayload.fromNotification(notification));
+    }
+
+    @Benchmark
+    public byte[] compactCbor() {
+        return codec.toCbor(NotificationPushPayload.fromNotification(notification));
+    }
+}
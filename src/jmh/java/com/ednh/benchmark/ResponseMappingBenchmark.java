@@ -0,0 +1,74 @@
+package com.ednh.benchmark;
+
+import com.ednh.dto.response.ApiResponse;
+import com.ednh.dto.response.NotificationFeedResponse;
+import com.ednh.entity.Notification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Feed responses: entity to DTO mapping and JSON serialization of the API envelope
+ * The object mapper is configured like the application's, with ISO dates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<Notification> page;
+    private ApiResponse<NotificationFeedResponse> feedResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        List<Notification> content = IntStream.range(0, pageSize).mapToObj(BenchmarkData::notification).toList();
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10L * pageSize);
+        feedResponse = ApiResponse.success("Notifications retrieved", NotificationFeedResponse.fromPage(page, 7));
+    }
+
+    @Benchmark
+    public NotificationFeedResponse fromPage() {
+        return NotificationFeedResponse.fromPage(page, 7);
+    }
+
+    @Benchmark
+    public byte[] serializeFeed() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(feedResponse);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializeFeed() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(
+                ApiResponse.success("Notifications retrieved", NotificationFeedResponse.fromPage(page, 7)));
+    }
+}
@@ -0,0 +1,127 @@
+package com.ednh.benchmark;
+
+import com.ednh.websocket.LocalNotificationDelivery;
+import com.ednh.websocket.NotificationBackplane;
+import com.ednh.websocket.PresenceRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the sessions of one user among many connected sessions
+ * Topic mode asks the simple broker's subscription registry for the user's topic; user
+ * mode reads the userId -> subscriptions map kept by {@link PresenceRegistry}. Each
+ * synthetic user has one session subscribed to their own feed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class SessionRoutingBenchmark {
+
+    @Param({"10000", "100000"})
+    private int sessions;
+
+    private DefaultSubscriptionRegistry brokerRegistry;
+    private PresenceRegistry presenceRegistry;
+    private String[] userIds;
+    private Message<?>[] topicMessages;
+
+    @Setup
+    public void setUp() {
+        brokerRegistry = new DefaultSubscriptionRegistry();
+        presenceRegistry = new PresenceRegistry(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(presenceRegistry, "backplane", new NoopBackplane());
+        userIds = new String[sessions];
+        topicMessages = new Message<?>[sessions];
+
+        for (int i = 0; i < sessions; i++) {
+            String userId = "user-" + i;
+            userIds[i] = userId;
+            String sessionId = "session-" + i;
+            String topic = LocalNotificationDelivery.USER_TOPIC_PREFIX + userId;
+            Principal principal = new UsernamePasswordAuthenticationToken(BenchmarkData.user(userId), null);
+
+            brokerRegistry.registerSubscription(subscribe(sessionId, topic));
+            presenceRegistry.onConnected(new SessionConnectedEvent(this, connected(sessionId), principal));
+            presenceRegistry.onSubscribe(new SessionSubscribeEvent(this,
+                    subscribe(sessionId, PresenceRegistry.USER_QUEUE_DESTINATION), principal));
+
+            SimpMessageHeaderAccessor send = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            send.setDestination(topic);
+            topicMessages[i] = MessageBuilder.createMessage(new byte[0], send.getMessageHeaders());
+        }
+    }
+
+    @Benchmark
+    public MultiValueMap<String, String> topicMode() {
+        return brokerRegistry.findSubscriptions(topicMessages[ThreadLocalRandom.current().nextInt(sessions)]);
+    }
+
+    @Benchmark
+    public Collection<PresenceRegistry.FeedSubscription> userMode() {
+        return presenceRegistry.feedSubscriptions(userIds[ThreadLocalRandom.current().nextInt(sessions)]);
+    }
+
+    private static Message<byte[]> connected(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static class NoopBackplane implements NotificationBackplane {
+
+        @Override
+        public void publish(String userId, Object payload) {
+        }
+
+        @Override
+        public boolean isUserOnline(String userId) {
+            return true;
+        }
+
+        @Override
+        public void userConnected(String userId) {
+        }
+
+        @Override
+        public void userDisconnected(String userId) {
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.ednh.channel;
+
+import com.ednh.config.ChannelProperties;
+import com.ednh.entity.Notification;
+import com.ednh.entity.User;
+import com.ednh.entity.UserPreferences;
+import com.ednh.repository.UserPreferencesRepository;
+import com.ednh.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fans notifications out to the enabled out-of-band channels
+ * Each channel has its own bounded queue and worker pool, so a slow or failing channel
+ * cannot hold up the others. Workers send micro-batches and retry failed batches with
+ * exponential backoff. Queues are in memory: anything still queued at shutdown is dropped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChannelDispatcher {
+
+    private final List<NotificationChannel> channels;
+    private final ChannelProperties channelProperties;
+    private final UserRepository userRepository;
+    private final UserPreferencesRepository preferencesRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final List<Lane> lanes = new ArrayList<>();
+
+    @PostConstruct
+    void start() {
+        for (NotificationChannel channel : channels) {
+            Lane lane = new Lane(channel, channelProperties.forChannel(channel.name()));
+            lane.start();
+            lanes.add(lane);
+            log.info("Channel '{}' started with {} workers", channel.name(), lane.settings.getWorkers());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        lanes.forEach(Lane::stop);
+    }
+
+    /**
+     * Queues the notifications on every channel the recipient has enabled
+     * Never blocks: messages that do not fit a full queue are counted and dropped
+     */
+    public void dispatch(Collection<Notification> notifications) {
+        if (lanes.isEmpty() || notifications.isEmpty()) {
+            return;
+        }
+
+        Set<String> userIds = notifications.stream().map(Notification::getUserId).collect(Collectors.toSet());
+        Map<String, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, UserPreferences> preferences = preferencesRepository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(UserPreferences::getUserId, Function.identity()));
+
+        for (Notification notification : notifications) {
+            User user = users.get(notification.getUserId());
+            if (user == null) {
+                continue;
+            }
+            // Users who never saved preferences get the defaults
+            UserPreferences userPreferences = preferences.getOrDefault(user.getId(),
+                    UserPreferences.builder().userId(user.getId()).build());
+            if (!userPreferences.isNotificationsEnabled()) {
+                continue;
+            }
+
+            for (Lane lane : lanes) {
+                String recipient = lane.channel.recipientOf(user);
+                if (recipient != null && lane.channel.isEnabledFor(userPreferences)) {
+                    lane.offer(ChannelMessage.of(notification, recipient));
+                }
+            }
+        }
+    }
+
+    private class Lane {
+
+        private final NotificationChannel channel;
+        private final ChannelProperties.Settings settings;
+        private final BlockingQueue<ChannelMessage> queue;
+        private final ExecutorService workers;
+
+        private final Counter sent;
+        private final Counter failed;
+        private final Counter rejected;
+        private final Counter retried;
+        private final Timer batchTimer;
+
+        private volatile boolean running = true;
+
+        private Lane(NotificationChannel channel, ChannelProperties.Settings settings) {
+            this.channel = channel;
+            this.settings = settings;
+            this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+            this.workers = Executors.newFixedThreadPool(settings.getWorkers(),
+                    new CustomizableThreadFactory("channel-" + channel.name() + "-"));
+
+            String name = channel.name();
+            sent = meterRegistry.counter("ednh.channel.sent", "channel", name);
+            failed = meterRegistry.counter("ednh.channel.failed", "channel", name);
+            rejected = meterRegistry.counter("ednh.channel.rejected", "channel", name);
+            retried = meterRegistry.counter("ednh.channel.retried", "channel", name);
+            batchTimer = meterRegistry.timer("ednh.channel.batch", "channel", name);
+            Gauge.builder("ednh.channel.queue", queue, BlockingQueue::size)
+                    .tag("channel", name)
+                    .description("Messages waiting for a channel worker")
+                    .register(meterRegistry);
+        }
+
+        private void start() {
+            for (int i = 0; i < settings.getWorkers(); i++) {
+                workers.execute(this::work);
+            }
+        }
+
+        private void stop() {
+            running = false;
+            workers.shutdownNow();
+            try {
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!queue.isEmpty()) {
+                log.warn("Channel '{}' stopped with {} messages undelivered", channel.name(), queue.size());
+            }
+        }
+
+        private void offer(ChannelMessage message) {
+            if (!queue.offer(message)) {
+                rejected.increment();
+            }
+        }
+
+        private void work() {
+            while (running) {
+                try {
+                    List<ChannelMessage> batch = nextBatch();
+                    if (!batch.isEmpty()) {
+                        batchTimer.record(() -> sendWithRetry(batch));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Waits for one message, then lingers briefly to fill the batch
+         */
+        private List<ChannelMessage> nextBatch() throws InterruptedException {
+            List<ChannelMessage> batch = new ArrayList<>(settings.getBatchSize());
+            ChannelMessage first = queue.poll(1, TimeUnit.SECONDS);
+            if (first == null) {
+                return batch;
+            }
+            batch.add(first);
+            queue.drainTo(batch, settings.getBatchSize() - 1);
+
+            long deadline = System.nanoTime() + settings.getMaxLinger().toNanos();
+            while (batch.size() < settings.getBatchSize()) {
+                long remaining = deadline - System.nanoTime();
+                ChannelMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+                queue.drainTo(batch, settings.getBatchSize() - batch.size());
+            }
+            return batch;
+        }
+
+        private void sendWithRetry(List<ChannelMessage> batch) {
+            Duration backoff = settings.getInitialBackoff();
+
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    channel.sendBatch(batch);
+                    sent.increment(batch.size());
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= settings.getMaxAttempts()) {
+                        failed.increment(batch.size());
+                        log.error("Channel '{}' gave up on a batch of {} after {} attempts: {}",
+                                channel.name(), batch.size(), attempt, e.getMessage());
+                        return;
+                    }
+                    retried.increment();
+                    log.warn("Channel '{}' batch failed (attempt {}), retrying in {}: {}",
+                            channel.name(), attempt, backoff, e.getMessage());
+                }
+
+                try {
+                    Thread.sleep(backoff.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.increment(batch.size());
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(settings.getMaxBackoff()) > 0
+                        ? settings.getMaxBackoff() : backoff.multipliedBy(2);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ednh.channel;
+
+import com.ednh.entity.Notification;
+
+/**
+ * One notification addressed to a recipient on a single channel
+ */
+public record ChannelMessage(String notificationId, String userId, String recipient, String title,
+                             String body, Notification.Priority priority) {
+
+    public static ChannelMessage of(Notification notification, String recipient) {
+        return new ChannelMessage(notification.getId(), notification.getUserId(), recipient,
+                notification.getTitle(), notification.getMessage(), notification.getPriority());
+    }
+}
@@ -0,0 +1,35 @@
+package com.ednh.channel;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Offline stand-in that appends each batch to a local file
+ * One open/flush per batch plays the part of one SMTP session or push connection
+ */
+public abstract class FileSinkChannel implements NotificationChannel {
+
+    private final Path file;
+
+    protected FileSinkChannel(String sinkDir, String fileName) {
+        this.file = Path.of(sinkDir, fileName);
+    }
+
+    protected abstract String format(ChannelMessage message) throws IOException;
+
+    @Override
+    public synchronized void sendBatch(List<ChannelMessage> batch) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (ChannelMessage message : batch) {
+                writer.write(format(message));
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ednh.channel;
+
+import com.ednh.config.ChannelProperties;
+import com.ednh.entity.User;
+import com.ednh.entity.UserPreferences;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Pattern;
+
+/**
+ * Email channel writing RFC 5322-style messages to a local mailbox file
+ * Header values come from webhook callers, so line breaks are folded into spaces and
+ * body lines starting with a dot are dot-stuffed; neither can forge headers or messages
+ */
+@Component
+@ConditionalOnProperty(prefix = "channels.email", name = "enabled", havingValue = "true")
+public class FileSinkEmailChannel extends FileSinkChannel {
+
+    private static final Pattern LINE_BREAKS = Pattern.compile("[\\r\\n]+");
+    private static final Pattern DOT_LINE = Pattern.compile("^\\.", Pattern.MULTILINE);
+
+    public FileSinkEmailChannel(ChannelProperties properties) {
+        super(properties.getSinkDir(), "email.mbox");
+    }
+
+    @Override
+    public String name() {
+        return "email";
+    }
+
+    @Override
+    public boolean isEnabledFor(UserPreferences preferences) {
+        return preferences.isEmailNotifications();
+    }
+
+    @Override
+    public String recipientOf(User user) {
+        return user.getEmail();
+    }
+
+    @Override
+    protected String format(ChannelMessage message) {
+        return "To: " + headerValue(message.recipient()) + "\r\n"
+                + "Subject: " + headerValue(message.title()) + "\r\n"
+                + "X-Notification-Id: " + message.notificationId() + "\r\n"
+                + "X-Priority: " + message.priority() + "\r\n"
+                + "\r\n"
+                + DOT_LINE.matcher(String.valueOf(message.body())).replaceAll("..") + "\r\n"
+                + ".\r\n";
+    }
+
+    private static String headerValue(String value) {
+        return value == null ? "" : LINE_BREAKS.matcher(value).replaceAll(" ");
+    }
+}
@@ -0,0 +1,46 @@
+package com.ednh.channel;
+
+import com.ednh.config.ChannelProperties;
+import com.ednh.entity.User;
+import com.ednh.entity.UserPreferences;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Mobile push channel writing one JSON request per line to a local file
+ */
+@Component
+@ConditionalOnProperty(prefix = "channels.push", name = "enabled", havingValue = "true")
+public class FileSinkPushChannel extends FileSinkChannel {
+
+    private final ObjectMapper objectMapper;
+
+    public FileSinkPushChannel(ChannelProperties properties, ObjectMapper objectMapper) {
+        super(properties.getSinkDir(), "push.jsonl");
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "push";
+    }
+
+    @Override
+    public boolean isEnabledFor(UserPreferences preferences) {
+        return preferences.isPushNotifications();
+    }
+
+    @Override
+    public String recipientOf(User user) {
+        // No device registry yet; the user id stands in for the device token
+        return user.getId();
+    }
+
+    @Override
+    protected String format(ChannelMessage message) throws IOException {
+        return objectMapper.writeValueAsString(message) + "\n";
+    }
+}
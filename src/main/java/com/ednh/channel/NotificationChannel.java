@@ -0,0 +1,25 @@
+package com.ednh.channel;
+
+import com.ednh.entity.User;
+import com.ednh.entity.UserPreferences;
+
+import java.util.List;
+
+/**
+ * Out-of-band delivery channel such as email or mobile push
+ * Implementations receive micro-batches so one connection or session can carry many messages
+ */
+public interface NotificationChannel {
+
+    String name();
+
+    boolean isEnabledFor(UserPreferences preferences);
+
+    // Address on this channel, or null when the user cannot be reached through it
+    String recipientOf(User user);
+
+    /**
+     * Sends the whole batch; throwing retries the batch with backoff
+     */
+    void sendBatch(List<ChannelMessage> batch) throws Exception;
+}
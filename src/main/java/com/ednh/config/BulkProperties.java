@@ -0,0 +1,22 @@
+package com.ednh.config;
+
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Bulk notification update properties
+ * Validated at startup, since a chunk size below one cannot bound an update
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "notifications.bulk")
+public class BulkProperties {
+
+    // Max documents touched per update when marking all read / archiving all
+    @Positive
+    private int chunkSize = 1000;
+}
@@ -0,0 +1,44 @@
+package com.ednh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Out-of-band channel configuration properties
+ * Each channel has its own worker pool, queue bound, batching and retry settings
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "channels")
+public class ChannelProperties {
+
+    // Directory the file-sink stand-ins write to
+    private String sinkDir = System.getProperty("java.io.tmpdir") + "/ednh-channels";
+
+    private Settings email = new Settings();
+    private Settings push = new Settings();
+
+    public Settings forChannel(String name) {
+        return switch (name) {
+            case "email" -> email;
+            case "push" -> push;
+            default -> throw new IllegalArgumentException("Unknown channel: " + name);
+        };
+    }
+
+    @Data
+    public static class Settings {
+        private boolean enabled = false;
+        private int workers = 1;
+        private int queueCapacity = 10_000;
+        private int batchSize = 50;
+        // How long a worker waits to fill a batch once it holds one message
+        private Duration maxLinger = Duration.ofMillis(200);
+        private int maxAttempts = 5;
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+    }
+}
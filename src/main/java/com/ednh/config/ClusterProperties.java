@@ -0,0 +1,20 @@
+package com.ednh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Cluster configuration properties
+ * Identifies this node and selects the inter-node delivery backplane
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cluster")
+public class ClusterProperties {
+
+    private String nodeId = UUID.randomUUID().toString();
+    private String backplane = "in-process";
+}
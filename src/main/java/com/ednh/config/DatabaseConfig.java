@@ -1,19 +1,34 @@
 package com.ednh.config;
 
+import com.ednh.monitoring.MongoCommandMetrics;
+import com.ednh.monitoring.MongoPoolMetrics;
+import com.ednh.monitoring.SlowQueryRecorder;
+import com.ednh.tenant.TenantRoutingMongoDatabaseFactory;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MongoDB configuration with connection pooling and performance optimization
+ * Every client, including dedicated tenant clients, gets the configured pool and socket
+ * settings, publishes command and pool metrics and feeds the slow-query recorder.
+ * Tenant-scoped collections are routed per tenant by {@link TenantRoutingMongoDatabaseFactory}
  */
 @Slf4j
 @Configuration
@@ -26,16 +41,97 @@ public class DatabaseConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.database}")
     private String databaseName;
 
+    @Autowired
+    private TenancyProperties tenancyProperties;
+
+    @Autowired
+    private MongoClientProperties mongoClientProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SlowQueryRecorder slowQueryRecorder;
+
     @Override
     protected String getDatabaseName() {
         return databaseName;
     }
 
+    /**
+     * Entities known to the mapping context from startup, so their indexes get built
+     * The default scans this package; entities used only through MongoTemplate would be missed
+     */
+    @Override
+    protected Collection<String> getMappingBasePackages() {
+        return List.of("com.ednh.entity");
+    }
+
     @Bean
     @Override
     public MongoClient mongoClient() {
         log.info("Configuring MongoDB client with URI: {}", mongoUri.replaceAll("://[^/]+", "://***"));
-        return MongoClients.create(mongoUri);
+        return MongoClients.create(clientSettings("shared", mongoUri).build());
+    }
+
+    @Bean
+    @Override
+    public MongoDatabaseFactory mongoDbFactory() {
+        return new TenantRoutingMongoDatabaseFactory(mongoClient(), getDatabaseName(), mongoUri, tenancyProperties,
+                this::clientSettings);
+    }
+
+    /**
+     * Client settings from the configured pool, socket and timeout values and the connection string
+     * The connection string is applied last, so options it sets win over the configured values
+     * @param client name tagged on the client's metrics
+     */
+    MongoClientSettings.Builder clientSettings(String client, String uri) {
+        MongoClientSettings.Builder settings = MongoClientSettings.builder();
+        customizeClient(client, settings);
+        // Only overrides the options present in the URI; listeners added above are kept
+        return settings.applyConnectionString(new ConnectionString(uri));
+    }
+
+    private void customizeClient(String client, MongoClientSettings.Builder settings) {
+        MongoClientProperties.Pool pool = mongoClientProperties.getPool();
+        MongoClientProperties.Socket socket = mongoClientProperties.getSocket();
+
+        settings.applyToConnectionPoolSettings(builder -> {
+            if (pool.getMaxSize() != null) {
+                builder.maxSize(pool.getMaxSize());
+            }
+            if (pool.getMinSize() != null) {
+                builder.minSize(pool.getMinSize());
+            }
+            if (pool.getMaxWaitTime() != null) {
+                builder.maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pool.getMaxConnectionIdleTime() != null) {
+                builder.maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pool.getMaxConnectionLifeTime() != null) {
+                builder.maxConnectionLifeTime(pool.getMaxConnectionLifeTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pool.getMaxConnecting() != null) {
+                builder.maxConnecting(pool.getMaxConnecting());
+            }
+            builder.addConnectionPoolListener(new MongoPoolMetrics(meterRegistry, client));
+        });
+        settings.applyToSocketSettings(builder -> {
+            if (socket.getConnectTimeout() != null) {
+                builder.connectTimeout(socket.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (socket.getReadTimeout() != null) {
+                builder.readTimeout(socket.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+        if (mongoClientProperties.getServerSelectionTimeout() != null) {
+            settings.applyToClusterSettings(builder -> builder.serverSelectionTimeout(
+                    mongoClientProperties.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        }
+        settings.addCommandListener(new MongoCommandMetrics(meterRegistry, client));
+        settings.addCommandListener(slowQueryRecorder.listener(client));
     }
 
     @Bean
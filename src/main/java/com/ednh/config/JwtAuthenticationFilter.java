@@ -1,7 +1,8 @@
 package com.ednh.config;
 
-import com.ednh.service.JwtService;
-import com.ednh.service.UserService;
+import com.ednh.entity.User;
+import com.ednh.service.JwtPrincipalService;
+import com.ednh.tenant.TenantContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,7 +12,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,14 +21,15 @@ import java.io.IOException;
 /**
  * JWT Authentication Filter
  * Intercepts requests to validate JWT tokens and set authentication context
+ * The principal comes from the token's claims, so a request costs no user lookup
+ * beyond the cached account status
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final UserService userService;
+    private final JwtPrincipalService jwtPrincipalService;
 
     @Override
     protected void doFilterInternal(
@@ -39,7 +40,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
         // Check if Authorization header exists and starts with Bearer
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -51,29 +51,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            username = jwtService.extractUsername(jwt);
+            // Only if user is not already authenticated
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Signature and expiry are checked while parsing
+                User user = jwtPrincipalService.resolve(jwt).orElse(null);
 
-            // If username is present and user is not already authenticated
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userService.loadUserByUsername(username);
-
-                // Validate token
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (user != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            user,
                             null,
-                            userDetails.getAuthorities()
+                            user.getAuthorities()
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    TenantContext.set(user.getTenantId());
 
-                    log.debug("Authentication set for user: {}", username);
+                    log.debug("Authentication set for user: {}", user.getUsername());
                 }
             }
         } catch (Exception e) {
             log.error("Error processing JWT token: {}", e.getMessage());
         }
 
-        filterChain.doFilter(request, response);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
     }
 }
@@ -0,0 +1,50 @@
+package com.ednh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * MongoDB client pool and socket settings and the slow-query recorder
+ * Pool, socket and timeout values are defaults: options set in the connection string win,
+ * and unset values keep the driver's
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mongodb")
+public class MongoClientProperties {
+
+    private Pool pool = new Pool();
+    private Socket socket = new Socket();
+    private Duration serverSelectionTimeout;
+    private SlowQuery slowQuery = new SlowQuery();
+
+    @Data
+    public static class Pool {
+        private Integer maxSize;
+        private Integer minSize;
+        // Longest a command waits for a free connection before failing
+        private Duration maxWaitTime;
+        private Duration maxConnectionIdleTime;
+        private Duration maxConnectionLifeTime;
+        // Connections being opened at once per pool
+        private Integer maxConnecting;
+    }
+
+    @Data
+    public static class Socket {
+        private Duration connectTimeout;
+        private Duration readTimeout;
+    }
+
+    @Data
+    public static class SlowQuery {
+        private boolean enabled = true;
+        // Operations at least this slow are logged with their redacted shape
+        private Duration logThreshold = Duration.ofMillis(100);
+        // Distinct shapes tracked; the one with the least total time makes room for a new one
+        private int maxShapes = 500;
+    }
+}
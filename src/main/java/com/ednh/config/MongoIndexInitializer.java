@@ -0,0 +1,62 @@
+package com.ednh.config;
+
+import com.ednh.tenant.TenantContext;
+import com.ednh.tenant.TenantRouting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the indexes declared on entities once the application is ready
+ * Automatic index creation is off, so without this the annotations are never applied.
+ * Tenant-scoped collections are indexed again for every tenant routed outside the shared ones
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private final MongoTemplate mongoTemplate;
+    private final TenantRouting tenantRouting;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        ensureIndexes(null);
+        tenantRouting.routedTenants().forEach(this::ensureIndexes);
+    }
+
+    /**
+     * Builds the indexes of the given tenant's collections, or of all shared collections for null
+     */
+    public void ensureIndexes(String tenantId) {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+
+        for (MongoPersistentEntity<?> entity : mongoTemplate.getConverter().getMappingContext().getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)
+                    || (tenantId != null && !TenantRouting.TENANT_COLLECTIONS.containsKey(entity.getType()))) {
+                continue;
+            }
+
+            TenantContext.runAs(tenantId, () -> {
+                String collection = mongoTemplate.getCollectionName(entity.getType());
+                try {
+                    IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+                    resolver.resolveIndexFor(entity.getType()).forEach(indexOps::createIndex);
+                    log.debug("Indexes ensured for collection: {}", collection);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to ensure indexes for collection {}: {}", collection, e.getMessage());
+                }
+            });
+        }
+    }
+}
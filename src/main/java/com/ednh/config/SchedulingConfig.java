@@ -0,0 +1,40 @@
+package com.ednh.config;
+
+import com.ednh.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Scheduler for @Scheduled jobs and executor for @Async methods
+ * Declared by name because the WebSocket schedulers would otherwise leave the
+ * scheduled jobs on a single fallback thread, where one slow job delays the rest,
+ * and @Async methods on an unbounded thread-per-task fallback
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${scheduling.pool-size:4}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor taskExecutor(
+            @Value("${async.pool-size:8}") int poolSize,
+            @Value("${async.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("async-");
+        // Async work reads and writes the caller's tenant data
+        executor.setTaskDecorator(TenantContext::wrap);
+        return executor;
+    }
+}
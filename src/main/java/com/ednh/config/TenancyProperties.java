@@ -0,0 +1,46 @@
+package com.ednh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tenant data placement
+ * Tenants not listed here share the default collections
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "tenancy")
+public class TenancyProperties {
+
+    private Map<String, Tenant> tenants = new HashMap<>();
+
+    public enum Mode {
+        // Default collections, shared with every other unlisted tenant
+        SHARED,
+        // Own collections in the default database, named with a _<tenantId> suffix
+        COLLECTION,
+        // Own database on the shared connection pool
+        DATABASE,
+        // Own database on its own client and connection pool
+        DEDICATED;
+
+        public boolean ownsDatabase() {
+            return this == DATABASE || this == DEDICATED;
+        }
+    }
+
+    @Data
+    public static class Tenant {
+        private Mode mode = Mode.SHARED;
+        // Defaults to <default database>_<tenantId>
+        private String database;
+        // DEDICATED only; defaults to the shared connection string
+        private String uri;
+        private int maxPoolSize = 50;
+        private int minPoolSize = 0;
+    }
+}
@@ -1,13 +1,19 @@
 package com.ednh.config;
 
+import com.ednh.websocket.NativeTransportHandshakeInterceptor;
 import com.ednh.websocket.NotificationWebSocketHandler;
+import com.ednh.websocket.PayloadFormatInterceptor;
+import com.ednh.websocket.SlowConsumerGuard;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * Updated WebSocket configuration with authentication support
@@ -19,27 +25,62 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final NotificationWebSocketHandler webSocketHandler;
+    private final PayloadFormatInterceptor payloadFormatInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final WebSocketProperties webSocketProperties;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable in-memory message broker for topics/queues
-        config.enableSimpleBroker("/topic", "/queue");
+        WebSocketProperties.Heartbeat heartbeat = webSocketProperties.getHeartbeat();
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{heartbeat.getServer().toMillis(), heartbeat.getClient().toMillis()})
+                .setTaskScheduler(webSocketHeartbeatScheduler());
         // Set application destination prefix for client messages
         config.setApplicationDestinationPrefixes("/app");
         // Set user destination prefix for private messages
         config.setUserDestinationPrefix("/user");
     }
 
+    /**
+     * Dedicated scheduler so heartbeats are not delayed by application @Scheduled work
+     */
+    @Bean
+    public ThreadPoolTaskScheduler webSocketHeartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(webSocketProperties.getHeartbeat().getSchedulerPoolSize());
+        scheduler.setThreadNamePrefix("ws-heartbeat-");
+        return scheduler;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // WebSocket endpoint with SockJS fallback support
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("http://localhost:*")
                 .withSockJS();
+        // Raw WebSocket endpoint; the only transport that can negotiate binary CBOR frames
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("http://localhost:*")
+                .addInterceptors(new NativeTransportHandshakeInterceptor());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        WebSocketProperties.Outbound outbound = webSocketProperties.getOutbound();
+        registration.setSendTimeLimit((int) outbound.getSendTimeLimit().toMillis())
+                .setSendBufferSizeLimit((int) outbound.getSendBufferSizeLimit().toBytes())
+                .addDecoratorFactory(slowConsumerGuard::decorate);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(webSocketHandler);
     }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Guard first so frames it drops are never re-encoded
+        registration.interceptors(slowConsumerGuard, payloadFormatInterceptor);
+    }
 }
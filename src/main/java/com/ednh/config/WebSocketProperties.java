@@ -0,0 +1,67 @@
+package com.ednh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * WebSocket delivery configuration properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "websocket")
+public class WebSocketProperties {
+
+    // TOPIC: broker fan-out on /topic/notifications/{userId}
+    // USER: direct per-session routing, clients subscribe to /user/queue/notifications
+    private DeliveryMode deliveryMode = DeliveryMode.TOPIC;
+
+    private Replay replay = new Replay();
+
+    private Outbound outbound = new Outbound();
+
+    private Heartbeat heartbeat = new Heartbeat();
+
+    public enum DeliveryMode {
+        TOPIC, USER
+    }
+
+    public enum SlowConsumerPolicy {
+        DROP_LOW, COLLAPSE, DISCONNECT
+    }
+
+    @Data
+    public static class Replay {
+        // Notifications fetched and pushed per round trip
+        private int batchSize = 100;
+        // Upper bound on notifications replayed for one subscription
+        private int maxNotifications = 1000;
+        // How far back to look when the client sends no last-seen cursor
+        private Duration window = Duration.ofDays(7);
+    }
+
+    @Data
+    public static class Outbound {
+        // Session is closed when a single send blocks longer than this
+        private Duration sendTimeLimit = Duration.ofSeconds(10);
+        // Session is closed when its buffered frames exceed this size
+        private DataSize sendBufferSizeLimit = DataSize.ofKilobytes(512);
+        // MESSAGE frames queued for a session before the slow-consumer policy applies
+        private int maxPendingFrames = 256;
+        private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_LOW;
+        // Session is closed once this many MESSAGE frames are queued, whatever the policy admits
+        private int hardMaxPendingFrames = 1024;
+    }
+
+    @Data
+    public static class Heartbeat {
+        // Interval at which the broker sends heartbeats; zero disables
+        private Duration server = Duration.ofSeconds(10);
+        // Interval at which the broker expects client heartbeats; zero disables
+        private Duration client = Duration.ofSeconds(10);
+        private int schedulerPoolSize = 1;
+    }
+}
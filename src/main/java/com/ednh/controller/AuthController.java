@@ -6,6 +6,7 @@ import com.ednh.dto.request.RegisterRequest;
 import com.ednh.dto.response.ApiResponse;
 import com.ednh.dto.response.AuthResponse;
 import com.ednh.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,11 +28,12 @@ public class AuthController {
 
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<AuthResponse>> register(
-            @Valid @RequestBody RegisterRequest request) {
+            @Valid @RequestBody RegisterRequest request,
+            HttpServletRequest httpRequest) {
 
         log.info("Registration attempt for username: {}", request.getUsername());
 
-        AuthResponse authResponse = authService.register(request);
+        AuthResponse authResponse = authService.register(request, ClientAddress.of(httpRequest));
         ApiResponse<AuthResponse> response = ApiResponse.success(
                 "User registered successfully",
                 authResponse
@@ -42,11 +44,12 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> login(
-            @Valid @RequestBody LoginRequest request) {
+            @Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest) {
 
         log.info("Login attempt for: {}", request.getUsernameOrEmail());
 
-        AuthResponse authResponse = authService.login(request);
+        AuthResponse authResponse = authService.login(request, ClientAddress.of(httpRequest));
         ApiResponse<AuthResponse> response = ApiResponse.success(
                 "Login successful",
                 authResponse
@@ -0,0 +1,28 @@
+package com.ednh.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Address of the client behind the load balancer
+ * Prefers the first X-Forwarded-For entry, then X-Real-IP, then the socket peer, so
+ * per-address limits key on the client rather than on the proxy in front of the service
+ */
+final class ClientAddress {
+
+    private ClientAddress() {
+    }
+
+    static String of(HttpServletRequest request) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+
+        String xRealIp = request.getHeader("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        return request.getRemoteAddr();
+    }
+}
@@ -2,23 +2,34 @@ package com.ednh.controller;
 
 import com.ednh.dto.request.NotificationActionRequest;
 import com.ednh.dto.response.ApiResponse;
+import com.ednh.dto.response.BulkActionResponse;
+import com.ednh.dto.response.NotificationChangesResponse;
 import com.ednh.dto.response.NotificationFeedResponse;
 import com.ednh.dto.response.NotificationResponse;
 import com.ednh.entity.Notification;
 import com.ednh.entity.User;
 import com.ednh.service.NotificationService;
+import com.ednh.websocket.NotificationStreamRegistry;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for notification feed and management
@@ -31,6 +42,7 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamRegistry streamRegistry;
 
     @GetMapping
     public ResponseEntity<ApiResponse<NotificationFeedResponse>> getNotifications(
@@ -70,6 +82,36 @@ public class NotificationController {
                 "Notifications retrieved successfully", feedResponse));
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(
+            @AuthenticationPrincipal User user,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        log.info("Opening notification stream for user: {}", user.getUsername());
+
+        SseEmitter emitter = streamRegistry.open(user.getId());
+        if (lastEventId != null && ObjectId.isValid(lastEventId)) {
+            streamRegistry.replay(user.getId(), emitter, lastEventId);
+        }
+        return emitter;
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<NotificationChangesResponse>> getChanges(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        try {
+            NotificationChangesResponse changes = notificationService.getChangesSince(
+                    user.getId(), since, Math.max(1, Math.min(limit, 500)));
+            return ResponseEntity.ok(ApiResponse.success("Changes retrieved successfully", changes));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/unread")
     public ResponseEntity<ApiResponse<NotificationFeedResponse>> getUnreadNotifications(
             @AuthenticationPrincipal User user,
@@ -125,7 +167,7 @@ public class NotificationController {
     }
 
     @PutMapping("/bulk-action")
-    public ResponseEntity<ApiResponse<String>> bulkAction(
+    public ResponseEntity<ApiResponse<BulkActionResponse>> bulkAction(
             @Valid @RequestBody NotificationActionRequest request,
             @AuthenticationPrincipal User user) {
 
@@ -133,19 +175,60 @@ public class NotificationController {
                 request.getAction(), request.getNotificationIds().size(), user.getUsername());
 
         try {
-            int updatedCount = notificationService.performBulkAction(
+            BulkActionResponse result = notificationService.performBulkAction(
                     request.getAction(), request.getNotificationIds(), user.getId());
 
             return ResponseEntity.ok(ApiResponse.success(
                     String.format("Successfully performed '%s' action on %d notifications",
-                            request.getAction(), updatedCount),
-                    String.valueOf(updatedCount)));
+                            result.getAction(), result.getModified()),
+                    result));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
         }
     }
 
+    @PutMapping("/read-all")
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Long>>>> markAllAsRead(
+            @AuthenticationPrincipal User user) {
+
+        log.info("Marking all notifications as read for user: {}", user.getUsername());
+
+        return notificationService.markAllAsRead(user.getId())
+                .thenApply(affected -> ResponseEntity.ok(ApiResponse.success(
+                        "All notifications marked as read", Map.of("affected", affected))));
+    }
+
+    @PutMapping("/archive-all")
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Long>>>> archiveAllBefore(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) String beforeId) {
+
+        // Either bound is expressed as an id: ObjectIds sort by creation time (second precision).
+        // A date bound gets zeroed trailing bytes, so every id of an earlier second sorts below it
+        // and none of the same second does, instead of a random split within that second
+        ObjectId bound;
+        if (beforeId != null && !beforeId.isBlank()) {
+            if (!ObjectId.isValid(beforeId)) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                        .body(ApiResponse.error("Invalid beforeId value: " + beforeId)));
+            }
+            bound = new ObjectId(beforeId);
+        } else if (before != null) {
+            bound = ObjectId.getSmallestWithDate(Date.from(before.atZone(ZoneId.systemDefault()).toInstant()));
+        } else {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Either 'before' or 'beforeId' is required")));
+        }
+
+        log.info("Archiving notifications before {} for user: {}", bound, user.getUsername());
+
+        return notificationService.archiveAllBefore(user.getId(), bound)
+                .thenApply(affected -> ResponseEntity.ok(ApiResponse.success(
+                        "Notifications archived", Map.of("affected", affected))));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<String>> deleteNotification(
             @PathVariable String id,
@@ -5,8 +5,11 @@ import com.ednh.dto.response.ApiResponse;
 import com.ednh.dto.response.WebhookResponse;
 import com.ednh.entity.Application;
 import com.ednh.entity.Notification;
+import com.ednh.exception.WebhookRejectedException;
+import com.ednh.monitoring.WebhookMetrics;
 import com.ednh.service.ApplicationService;
 import com.ednh.service.NotificationService;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -27,8 +30,11 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class WebhookController {
 
+    private static final String OUTCOME_REJECTED = "rejected";
+
     private final NotificationService notificationService;
     private final ApplicationService applicationService;
+    private final WebhookMetrics webhookMetrics;
 
     @PostMapping("/{appId}")
     public ResponseEntity<ApiResponse<WebhookResponse>> receiveNotification(
@@ -39,9 +45,14 @@ public class WebhookController {
 
         log.info("Webhook notification received from app: {} for user: {}", appId, request.getUserId());
 
+        Timer.Sample total = webhookMetrics.start();
+        // Tagged on outcomes only once the application is known to exist
+        String knownAppId = null;
+
         try {
             // Validate Authorization header format
             if (!authHeader.startsWith("Bearer ")) {
+                webhookMetrics.outcome(null, OUTCOME_REJECTED, "invalid_header");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(ApiResponse.error("Invalid Authorization header format"));
             }
@@ -49,32 +60,40 @@ public class WebhookController {
             String token = authHeader.substring(7);
 
             // Validate application and token
-            Optional<Application> appOpt = applicationService.findByAppId(appId);
+            Optional<Application> appOpt = webhookMetrics.time("app_lookup",
+                    () -> applicationService.findByAppId(appId));
             if (appOpt.isEmpty()) {
                 log.warn("Unknown application ID: {}", appId);
+                webhookMetrics.outcome(null, OUTCOME_REJECTED, "unknown_app");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(ApiResponse.error("Invalid application ID"));
             }
 
             Application app = appOpt.get();
+            knownAppId = app.getAppId();
 
             // Validate JWT token
-            if (!applicationService.validateApplicationToken(appId, token)) {
+            if (!webhookMetrics.time("token_validation", () -> applicationService.validateApplicationToken(appId, token))) {
                 log.warn("Invalid token for application: {}", appId);
+                webhookMetrics.outcome(knownAppId, OUTCOME_REJECTED, "invalid_token");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(ApiResponse.error("Invalid or expired token"));
             }
 
             // Extract client information
-            String sourceIp = getClientIpAddress(httpRequest);
+            String sourceIp = ClientAddress.of(httpRequest);
             String userAgent = httpRequest.getHeader("User-Agent");
 
             // Create notification
-            Notification notification = notificationService.createNotification(
+            NotificationService.Ingestion ingestion = notificationService.createNotification(
                     request, app, sourceIp, userAgent);
+            Notification notification = ingestion.notification();
 
             // Update application statistics
-            applicationService.incrementNotificationCount(appId);
+            webhookMetrics.time("app_stats", () -> applicationService.incrementNotificationCount(appId));
+
+            // Counted only now, so a failure above is counted once, as rejected
+            webhookMetrics.outcome(knownAppId, ingestion.outcome(), ingestion.reason());
 
             // Return success response
             WebhookResponse webhookResponse = WebhookResponse.success(
@@ -87,6 +106,8 @@ public class WebhookController {
 
         } catch (RuntimeException e) {
             log.error("Error processing webhook from app {}: {}", appId, e.getMessage());
+            webhookMetrics.outcome(knownAppId, OUTCOME_REJECTED,
+                    e instanceof WebhookRejectedException rejected ? rejected.getReason() : "error");
 
             WebhookResponse errorResponse = WebhookResponse.error(e.getMessage());
             ApiResponse<WebhookResponse> response = ApiResponse.error(e.getMessage());
@@ -96,12 +117,15 @@ public class WebhookController {
 
         } catch (Exception e) {
             log.error("Unexpected error processing webhook from app {}: {}", appId, e.getMessage());
+            webhookMetrics.outcome(knownAppId, OUTCOME_REJECTED, "error");
 
             WebhookResponse errorResponse = WebhookResponse.error("Internal server error");
             ApiResponse<WebhookResponse> response = ApiResponse.error("Internal server error");
             response.setData(errorResponse);
 
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        } finally {
+            webhookMetrics.stop(total, "total");
         }
     }
 
@@ -121,18 +145,4 @@ public class WebhookController {
                 "Webhook status retrieved",
                 status + " - Total notifications sent: " + app.getTotalNotificationsSent()));
     }
-
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-
-        return request.getRemoteAddr();
-    }
 }
@@ -0,0 +1,21 @@
+package com.ednh.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for client delivery acknowledgements
+ * Sent over STOMP once notifications have been received by the client
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationAckRequest {
+
+    private List<String> ids;
+}
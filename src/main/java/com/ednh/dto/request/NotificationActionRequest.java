@@ -1,6 +1,7 @@
 package com.ednh.dto.request;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,5 +22,6 @@ public class NotificationActionRequest {
     @NotBlank(message = "Action is required")
     private String action; // "read", "unread", "archive", "delete"
 
+    @NotEmpty(message = "Notification IDs are required")
     private List<String> notificationIds;
 }
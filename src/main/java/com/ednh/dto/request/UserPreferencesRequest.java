@@ -52,6 +52,11 @@ public class UserPreferencesRequest {
     private Boolean groupSimilarNotifications;
     private Integer groupingTimeWindowMinutes;
 
+    // Digest
+    private Boolean digestEnabled;
+    private Integer digestIntervalMinutes;
+    private Notification.Priority digestMaxPriority;
+
     // Auto-cleanup
     private Boolean autoArchiveEnabled;
     private Integer autoArchiveAfterDays;
@@ -0,0 +1,31 @@
+package com.ednh.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for bulk notification actions
+ * Reports how many of the requested notifications matched and were changed
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkActionResponse {
+
+    private String action;
+    private int requested;
+    private long matched;
+    private long modified;
+
+    public static BulkActionResponse of(String action, int requested, long matched, long modified) {
+        return BulkActionResponse.builder()
+                .action(action)
+                .requested(requested)
+                .matched(matched)
+                .modified(modified)
+                .build();
+    }
+}
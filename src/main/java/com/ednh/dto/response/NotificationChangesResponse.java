@@ -0,0 +1,55 @@
+package com.ednh.dto.response;
+
+import com.ednh.entity.Notification;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO for notification delta sync
+ * Lists what changed after the request cursor; pass {@code cursor} back as {@code since}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationChangesResponse {
+
+    // Notifications created after the cursor, in full
+    private List<NotificationResponse> created;
+
+    // Existing notifications whose state changed after the cursor
+    private List<StateChange> updated;
+
+    // Ids of notifications deleted after the cursor
+    private List<String> deleted;
+
+    private String cursor;
+    private boolean hasMore;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StateChange {
+        private String id;
+        private Notification.Status status;
+        private boolean archived;
+        private LocalDateTime readAt;
+        private LocalDateTime archivedAt;
+
+        public static StateChange fromNotification(Notification notification) {
+            return StateChange.builder()
+                    .id(notification.getId())
+                    .status(notification.getStatus())
+                    .archived(notification.isArchived())
+                    .readAt(notification.getReadAt())
+                    .archivedAt(notification.getArchivedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ednh.dto.response;
+
+import com.ednh.entity.Notification;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * Compact DTO pushed to clients over WebSocket
+ * Short field names and epoch-millis timestamps keep frames small; server-side
+ * metadata such as source IP, user agent and tenant never leaves the backend
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class NotificationPushPayload {
+
+    @JsonProperty("i")
+    private String id;
+
+    @JsonProperty("a")
+    private String appId;
+
+    @JsonProperty("t")
+    private String title;
+
+    @JsonProperty("m")
+    private String message;
+
+    @JsonProperty("y")
+    private Notification.NotificationType type;
+
+    @JsonProperty("p")
+    private Notification.Priority priority;
+
+    @JsonProperty("d")
+    private Map<String, Object> data;
+
+    // Creation time in epoch milliseconds
+    @JsonProperty("c")
+    private long createdAt;
+
+    public static NotificationPushPayload fromNotification(Notification notification) {
+        return NotificationPushPayload.builder()
+                .id(notification.getId())
+                .appId(notification.getAppId())
+                .title(notification.getTitle())
+                .message(notification.getMessage())
+                .type(notification.getType())
+                .priority(notification.getPriority())
+                .data(notification.getData())
+                .createdAt(notification.getCreatedAt() != null
+                        ? notification.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        : System.currentTimeMillis())
+                .build();
+    }
+}
@@ -57,6 +57,11 @@ public class UserPreferencesResponse {
     private boolean groupSimilarNotifications;
     private int groupingTimeWindowMinutes;
 
+    // Digest
+    private boolean digestEnabled;
+    private int digestIntervalMinutes;
+    private Notification.Priority digestMaxPriority;
+
     // Auto-cleanup
     private boolean autoArchiveEnabled;
     private int autoArchiveAfterDays;
@@ -92,6 +97,9 @@ public class UserPreferencesResponse {
                 .maxNotificationsPerHour(preferences.getMaxNotificationsPerHour())
                 .groupSimilarNotifications(preferences.isGroupSimilarNotifications())
                 .groupingTimeWindowMinutes(preferences.getGroupingTimeWindowMinutes())
+                .digestEnabled(preferences.isDigestEnabled())
+                .digestIntervalMinutes(preferences.getDigestIntervalMinutes())
+                .digestMaxPriority(preferences.getDigestMaxPriority())
                 .autoArchiveEnabled(preferences.isAutoArchiveEnabled())
                 .autoArchiveAfterDays(preferences.getAutoArchiveAfterDays())
                 .autoDeleteEnabled(preferences.isAutoDeleteEnabled())
@@ -0,0 +1,60 @@
+package com.ednh.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Per-user change counter for notification delta sync
+ * A version is allocated atomically together with a pending entry and the entry is
+ * removed once the write it stamps has finished. Delta sync only serves versions below
+ * the oldest pending one, so a version is never skipped by a cursor that has moved past it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_versions#{@tenantRouting.collectionSuffix()}")
+public class ChangeVersion {
+
+    // Owning user id
+    @Id
+    private String id;
+
+    // Highest version allocated
+    private long version;
+
+    // Versions whose writes are still running
+    private List<Pending> pending;
+
+    /**
+     * Highest version whose writes, and those of every lower version, have finished
+     * @param abandonedBefore pending entries started before this are treated as finished,
+     *                        so a write lost with its node does not stall the user's sync
+     */
+    public long committedVersion(Instant abandonedBefore) {
+        long committed = version;
+        if (pending != null) {
+            for (Pending entry : pending) {
+                if (entry.getStartedAt() != null && entry.getStartedAt().isAfter(abandonedBefore)) {
+                    committed = Math.min(committed, entry.getVersion() - 1);
+                }
+            }
+        }
+        return committed;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pending {
+        private long version;
+        private Instant startedAt;
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 
@@ -20,7 +21,14 @@ import java.util.Map;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(collection = "notifications")
+@Document(collection = "notifications#{@tenantRouting.collectionSuffix()}")
+@CompoundIndex(name = "user_id_idx", def = "{'userId': 1, '_id': 1}")
+@CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1}")
+@CompoundIndex(name = "user_status_id_idx", def = "{'userId': 1, 'status': 1, '_id': 1}")
+@CompoundIndex(name = "user_delivered_id_idx", def = "{'userId': 1, 'delivered': 1, '_id': 1}")
+@CompoundIndex(name = "user_version_id_idx", def = "{'userId': 1, 'changeVersion': 1, '_id': 1}")
+@CompoundIndex(name = "dispatch_priority_idx", def = "{'dispatchPending': 1, 'priority': 1, '_id': 1}",
+        partialFilter = "{'dispatchPending': true}")
 public class Notification {
 
     @Id
@@ -63,6 +71,16 @@ public class Notification {
 
     private LocalDateTime archivedAt;
 
+    // Per-user change version of the last mutation and of creation (delta sync)
+    private Long changeVersion;
+    private Long createdVersion;
+
+    // Outbox: set while a real-time dispatch is owed, removed once dispatched
+    private Boolean dispatchPending;
+    private String dispatchOwner;
+    private LocalDateTime dispatchLeaseUntil;
+    private Integer dispatchAttempts;
+
     // Multi-tenant support
     private String tenantId;
 
@@ -0,0 +1,36 @@
+package com.ednh.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted notification, kept so delta sync can report the deletion
+ * Expires after the retention period; older cursors need a full reload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "notification_tombstones#{@tenantRouting.collectionSuffix()}")
+@CompoundIndex(name = "user_version_id_idx", def = "{'userId': 1, 'changeVersion': 1, '_id': 1}")
+public class NotificationTombstone {
+
+    // Id of the deleted notification
+    @Id
+    private String id;
+
+    private String userId;
+
+    private long changeVersion;
+
+    @Indexed(expireAfter = "30d")
+    private LocalDateTime deletedAt;
+}
@@ -6,7 +6,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 
@@ -14,7 +13,8 @@ import java.time.LocalDateTime;
 
 /**
  * Refresh token entity for JWT token refresh mechanism
- * Stores refresh tokens with expiration and user association
+ * Only the SHA-256 hash of the token is stored; the token itself is handed to the client once.
+ * Rotation replaces the hash in place, so a token document lives for one login session
  */
 @Data
 @Builder
@@ -26,18 +26,22 @@ public class RefreshToken {
     @Id
     private String id;
 
-    @Indexed(unique = true)
-    private String token;
+    // Sparse, so legacy tokens without a hash cannot fail the build before they are removed
+    @Indexed(unique = true, sparse = true)
+    private String tokenHash;
 
-    @DBRef
-    private User user;
+    @Indexed
+    private String userId;
 
-    @Indexed(expireAfterSeconds = 0)
+    // TTL index built explicitly by RefreshTokenService at startup
     private LocalDateTime expiryDate;
 
     @CreatedDate
     private LocalDateTime createdAt;
 
+    private LocalDateTime rotatedAt;
+
+    @Builder.Default
     private boolean revoked = false;
 
     public boolean isExpired() {
@@ -0,0 +1,31 @@
+package com.ednh.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease held by the node currently running a cluster-wide scheduled job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "scheduler_locks")
+public class SchedulerLock {
+
+    // Job name
+    @Id
+    private String id;
+
+    private String owner;
+
+    private LocalDateTime lockedAt;
+
+    private LocalDateTime lockedUntil;
+}
@@ -23,7 +23,7 @@ import java.util.Map;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(collection = "user_preferences")
+@Document(collection = "user_preferences#{@tenantRouting.collectionSuffix()}")
 public class UserPreferences {
 
     @Id
@@ -83,6 +83,16 @@ public class UserPreferences {
     @Builder.Default
     private int groupingTimeWindowMinutes = 30;
 
+    // Digest: qualifying notifications are summarised periodically instead of pushed one by one
+    @Builder.Default
+    private boolean digestEnabled = false;
+
+    @Builder.Default
+    private int digestIntervalMinutes = 60;
+
+    @Builder.Default
+    private Notification.Priority digestMaxPriority = Notification.Priority.NORMAL;
+
     // Auto-cleanup settings
     @Builder.Default
     private boolean autoArchiveEnabled = true;
@@ -132,6 +142,11 @@ public class UserPreferences {
         }
     }
 
+    public boolean isDigestEligible(Notification.Priority priority) {
+        return digestEnabled && priority != null && digestMaxPriority != null
+                && priority.ordinal() <= digestMaxPriority.ordinal();
+    }
+
     public boolean isPriorityMet(Notification.Priority priority) {
         return minimumPriority == null ||
                 priority.ordinal() >= minimumPriority.ordinal();
@@ -0,0 +1,12 @@
+package com.ednh.exception;
+
+/**
+ * Raised when a request would violate a uniqueness constraint
+ * Mapped to 409
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ednh.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Raised when a request is turned away by admission control or throttling
+ * Mapped to 429 with a Retry-After header
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ednh.exception;
+
+import lombok.Getter;
+
+/**
+ * Raised when a webhook notification is refused for a known reason
+ * The reason is a short metric tag such as {@code user_not_found}
+ */
+@Getter
+public class WebhookRejectedException extends RuntimeException {
+
+    private final String reason;
+
+    public WebhookRejectedException(String reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
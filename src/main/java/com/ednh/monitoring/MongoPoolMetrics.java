@@ -0,0 +1,132 @@
+package com.ednh.monitoring;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Connection pool gauges and checkout wait times for one MongoDB client
+ * A client keeps one pool per server; every meter is tagged with the client and server.
+ */
+public class MongoPoolMetrics implements ConnectionPoolListener {
+
+    private final MeterRegistry meterRegistry;
+    private final String client;
+    private final Map<ServerId, PoolStats> pools = new ConcurrentHashMap<>();
+
+    public MongoPoolMetrics(MeterRegistry meterRegistry, String client) {
+        this.meterRegistry = meterRegistry;
+        this.client = client;
+    }
+
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        pools.put(event.getServerId(), new PoolStats(event.getServerId()));
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        PoolStats stats = pools.remove(event.getServerId());
+        if (stats != null) {
+            stats.meters.forEach(meterRegistry::remove);
+        }
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        withStats(event.getConnectionId().getServerId(), stats -> stats.size.incrementAndGet());
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        withStats(event.getConnectionId().getServerId(), stats -> stats.size.decrementAndGet());
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        withStats(event.getServerId(), stats -> stats.waiting.incrementAndGet());
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        withStats(event.getConnectionId().getServerId(), stats -> {
+            stats.waiting.decrementAndGet();
+            stats.inUse.incrementAndGet();
+            stats.checkout.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        });
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        withStats(event.getServerId(), stats -> {
+            stats.waiting.decrementAndGet();
+            meterRegistry.counter("ednh.mongo.pool.checkout_failed",
+                            stats.tags.and("reason", event.getReason().name().toLowerCase()))
+                    .increment();
+        });
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        withStats(event.getConnectionId().getServerId(), stats -> stats.inUse.decrementAndGet());
+    }
+
+    private void withStats(ServerId serverId, Consumer<PoolStats> update) {
+        PoolStats stats = pools.get(serverId);
+        if (stats != null) {
+            update.accept(stats);
+        }
+    }
+
+    private class PoolStats {
+
+        private final Tags tags;
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Timer checkout;
+        private final List<Meter> meters;
+
+        private PoolStats(ServerId serverId) {
+            tags = Tags.of("client", client, "server", serverId.getAddress().toString());
+            checkout = Timer.builder("ednh.mongo.pool.checkout")
+                    .description("Time spent waiting for a pooled connection")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            meters = List.of(
+                    checkout,
+                    Gauge.builder("ednh.mongo.pool.size", size, AtomicInteger::get)
+                            .description("Open connections in the pool")
+                            .tags(tags)
+                            .register(meterRegistry),
+                    Gauge.builder("ednh.mongo.pool.in_use", inUse, AtomicInteger::get)
+                            .description("Connections checked out of the pool")
+                            .tags(tags)
+                            .register(meterRegistry),
+                    Gauge.builder("ednh.mongo.pool.waiting", waiting, AtomicInteger::get)
+                            .description("Operations waiting for a connection")
+                            .tags(tags)
+                            .register(meterRegistry));
+        }
+    }
+}
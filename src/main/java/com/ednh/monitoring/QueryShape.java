@@ -0,0 +1,160 @@
+package com.ednh.monitoring;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reduces a MongoDB command to its query shape
+ * Field names, operators, sort and projection specs are kept; every value that could
+ * carry user data is replaced by {@code ?}, so shapes are safe to log and aggregate.
+ */
+public final class QueryShape {
+
+    static final int MAX_LENGTH = 1000;
+
+    private static final String REDACTED = "?";
+
+    // Logical operators whose array holds sub-filters rather than values
+    private static final Set<String> LOGICAL_OPERATORS = Set.of("$and", "$or", "$nor");
+
+    // Pipeline stages whose arguments are structure rather than data
+    private static final Set<String> STRUCTURAL_STAGES = Set.of(
+            "$sort", "$project", "$unset", "$unwind", "$group", "$count", "$replaceRoot");
+
+    private QueryShape() {
+    }
+
+    /**
+     * @return the shape, or null for commands that are not queries or writes by filter
+     */
+    public static String of(String commandName, BsonDocument command) {
+        StringBuilder shape = new StringBuilder();
+        switch (commandName) {
+            case "find" -> {
+                part(shape, "filter", command.get("filter"), false);
+                part(shape, "sort", command.get("sort"), true);
+                part(shape, "projection", command.get("projection"), true);
+            }
+            case "aggregate" -> pipeline(shape, command.get("pipeline"));
+            case "count" -> part(shape, "filter", command.get("query"), false);
+            case "distinct" -> {
+                part(shape, "key", command.get("key"), true);
+                part(shape, "filter", command.get("query"), false);
+            }
+            case "findAndModify" -> {
+                part(shape, "filter", command.get("query"), false);
+                part(shape, "sort", command.get("sort"), true);
+                part(shape, "remove", command.get("remove"), true);
+            }
+            // Bulk writes are shaped by their first statement
+            case "update" -> part(shape, "filter", firstStatement(command.get("updates"), "q"), false);
+            case "delete" -> part(shape, "filter", firstStatement(command.get("deletes"), "q"), false);
+            default -> {
+                return null;
+            }
+        }
+        if (shape.length() > MAX_LENGTH) {
+            shape.setLength(MAX_LENGTH);
+            shape.append("...");
+        }
+        return shape.toString();
+    }
+
+    private static void part(StringBuilder shape, String name, BsonValue value, boolean keepValues) {
+        if (value == null) {
+            return;
+        }
+        if (!shape.isEmpty()) {
+            shape.append(' ');
+        }
+        shape.append(name).append('=');
+        render(shape, value, keepValues);
+    }
+
+    private static void pipeline(StringBuilder shape, BsonValue pipeline) {
+        shape.append("pipeline=[");
+        if (pipeline != null && pipeline.isArray()) {
+            boolean first = true;
+            for (BsonValue stage : pipeline.asArray()) {
+                if (!first) {
+                    shape.append(", ");
+                }
+                first = false;
+                if (!stage.isDocument()) {
+                    shape.append(REDACTED);
+                    continue;
+                }
+                shape.append('{');
+                boolean firstKey = true;
+                for (Map.Entry<String, BsonValue> entry : stage.asDocument().entrySet()) {
+                    if (!firstKey) {
+                        shape.append(", ");
+                    }
+                    firstKey = false;
+                    shape.append(entry.getKey()).append(": ");
+                    render(shape, entry.getValue(), STRUCTURAL_STAGES.contains(entry.getKey()));
+                }
+                shape.append('}');
+            }
+        }
+        shape.append(']');
+    }
+
+    private static void render(StringBuilder shape, BsonValue value, boolean keepValues) {
+        if (value.isDocument()) {
+            shape.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (!first) {
+                    shape.append(", ");
+                }
+                first = false;
+                shape.append(entry.getKey()).append(": ");
+                if (!keepValues && LOGICAL_OPERATORS.contains(entry.getKey()) && entry.getValue().isArray()) {
+                    renderArray(shape, entry.getValue().asArray(), false);
+                } else {
+                    render(shape, entry.getValue(), keepValues);
+                }
+            }
+            shape.append('}');
+        } else if (!keepValues) {
+            // Includes $in lists, so a shape does not vary with the list length
+            shape.append(REDACTED);
+        } else if (value.isArray()) {
+            renderArray(shape, value.asArray(), true);
+        } else if (value.isString()) {
+            shape.append('"').append(value.asString().getValue()).append('"');
+        } else if (value.isNumber()) {
+            shape.append(value.asNumber().longValue());
+        } else if (value.isBoolean()) {
+            shape.append(value.asBoolean().getValue());
+        } else {
+            shape.append(REDACTED);
+        }
+    }
+
+    private static void renderArray(StringBuilder shape, BsonArray array, boolean keepValues) {
+        shape.append('[');
+        boolean first = true;
+        for (BsonValue element : array) {
+            if (!first) {
+                shape.append(", ");
+            }
+            first = false;
+            render(shape, element, keepValues);
+        }
+        shape.append(']');
+    }
+
+    private static BsonValue firstStatement(BsonValue statements, String field) {
+        if (statements == null || !statements.isArray() || statements.asArray().isEmpty()) {
+            return null;
+        }
+        BsonValue first = statements.asArray().get(0);
+        return first.isDocument() ? first.asDocument().get(field) : null;
+    }
+}
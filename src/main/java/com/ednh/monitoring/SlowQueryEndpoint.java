@@ -0,0 +1,41 @@
+package com.ednh.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator view of the slowest MongoDB query shapes
+ * GET /actuator/slowqueries?orderBy=total|p99&amp;limit=N; DELETE clears the statistics
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SlowQueryRecorder recorder;
+
+    @ReadOperation
+    public Map<String, Object> slowQueries(@Nullable String orderBy, @Nullable Integer limit) {
+        String order = SlowQueryRecorder.ORDER_P99.equals(orderBy)
+                ? SlowQueryRecorder.ORDER_P99 : SlowQueryRecorder.ORDER_TOTAL;
+        int max = limit != null && limit > 0 ? limit : DEFAULT_LIMIT;
+        return Map.of(
+                "orderBy", order,
+                "trackedShapes", recorder.shapeCount(),
+                "evictedShapes", recorder.evictedCount(),
+                "shapes", recorder.top(order, max));
+    }
+
+    @DeleteOperation
+    public void reset() {
+        recorder.reset();
+    }
+}
@@ -0,0 +1,228 @@
+package com.ednh.monitoring;
+
+import com.ednh.config.MongoClientProperties;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates MongoDB operation latency by query shape
+ * Queries and writes by filter are reduced to a {@link QueryShape} when they start; each
+ * shape keeps its count, total, max and a log-scale latency histogram for p99. The number
+ * of shapes is bounded, and operations over the log threshold are logged with the shape
+ * only, never the values. Cursor getMore batches are not attributed to a shape.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SlowQueryRecorder {
+
+    public static final String ORDER_TOTAL = "total";
+    public static final String ORDER_P99 = "p99";
+
+    private final MongoClientProperties mongoClientProperties;
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final AtomicLong evicted = new AtomicLong();
+
+    // Shape of each in-flight operation; request ids are unique across clients
+    private final Map<Integer, ShapeStats> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Command listener feeding this recorder from one client
+     * @param client name shown next to logged slow operations
+     */
+    public CommandListener listener(String client) {
+        return new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                started(event);
+            }
+
+            @Override
+            public void commandSucceeded(CommandSucceededEvent event) {
+                finished(client, event.getRequestId(), event.getDatabaseName(),
+                        event.getElapsedTime(TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public void commandFailed(CommandFailedEvent event) {
+                finished(client, event.getRequestId(), event.getDatabaseName(),
+                        event.getElapsedTime(TimeUnit.NANOSECONDS));
+            }
+        };
+    }
+
+    /**
+     * @param orderBy {@link #ORDER_TOTAL} or {@link #ORDER_P99}
+     */
+    public List<ShapeSummary> top(String orderBy, int limit) {
+        Comparator<ShapeSummary> order = ORDER_P99.equals(orderBy)
+                ? Comparator.comparingDouble(ShapeSummary::p99Millis)
+                : Comparator.comparingDouble(ShapeSummary::totalMillis);
+        return shapes.values().stream()
+                .map(ShapeStats::summary)
+                .sorted(order.reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public int shapeCount() {
+        return shapes.size();
+    }
+
+    public long evictedCount() {
+        return evicted.get();
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    private void started(CommandStartedEvent event) {
+        MongoClientProperties.SlowQuery settings = mongoClientProperties.getSlowQuery();
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        // The command document is only valid during this callback, so the shape is taken now
+        String shape = QueryShape.of(event.getCommandName(), event.getCommand());
+        if (shape == null) {
+            return;
+        }
+
+        BsonValue target = event.getCommand().get(event.getCommandName());
+        String collection = target != null && target.isString() ? target.asString().getValue() : "unknown";
+        String key = event.getCommandName() + ' ' + collection + ' ' + shape;
+
+        ShapeStats stats = shapes.get(key);
+        if (stats == null) {
+            if (shapes.size() >= settings.getMaxShapes()) {
+                evictLeastCostly();
+            }
+            stats = shapes.computeIfAbsent(key, k -> new ShapeStats(event.getCommandName(), collection, shape));
+        }
+        inFlight.put(event.getRequestId(), stats);
+    }
+
+    private void finished(String client, int requestId, String database, long elapsedNanos) {
+        ShapeStats stats = inFlight.remove(requestId);
+        if (stats == null) {
+            return;
+        }
+        stats.record(elapsedNanos);
+
+        long thresholdNanos = mongoClientProperties.getSlowQuery().getLogThreshold().toNanos();
+        if (elapsedNanos >= thresholdNanos) {
+            log.warn("Slow MongoDB {} on {}.{} took {} ms (client {}): {}", stats.command, database,
+                    stats.collection, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), client, stats.shape);
+        }
+    }
+
+    private void evictLeastCostly() {
+        shapes.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().totalNanos.sum()))
+                .ifPresent(entry -> {
+                    if (shapes.remove(entry.getKey(), entry.getValue())) {
+                        evicted.incrementAndGet();
+                    }
+                });
+    }
+
+    public record ShapeSummary(String command, String collection, String shape, long count,
+                               double totalMillis, double meanMillis, double p99Millis, double maxMillis,
+                               Instant lastSeen) {
+    }
+
+    /**
+     * Running statistics of one shape
+     * Latencies fall into buckets of four per power of two microseconds, so p99 is
+     * reported as the upper bound of its bucket, at most 25% above the true value.
+     */
+    static class ShapeStats {
+
+        private static final int SUB_BUCKETS = 4;
+        private static final int BUCKETS = 42 * SUB_BUCKETS;
+
+        private final String command;
+        private final String collection;
+        private final String shape;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private volatile long lastSeenMillis;
+
+        ShapeStats(String command, String collection, String shape) {
+            this.command = command;
+            this.collection = collection;
+            this.shape = shape;
+        }
+
+        void record(long elapsedNanos) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+            buckets.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+            lastSeenMillis = System.currentTimeMillis();
+        }
+
+        ShapeSummary summary() {
+            long n = count.sum();
+            double total = totalNanos.sum() / 1e6;
+            return new ShapeSummary(command, collection, shape, n, total, n > 0 ? total / n : 0,
+                    percentileMicros(0.99) / 1e3, maxNanos.get() / 1e6, Instant.ofEpochMilli(lastSeenMillis));
+        }
+
+        long percentileMicros(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                n += counts[i];
+            }
+            long rank = (long) Math.ceil(percentile * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return upperBoundMicros(i);
+                }
+            }
+            return 0;
+        }
+
+        static int bucketOf(long micros) {
+            if (micros < SUB_BUCKETS) {
+                return (int) Math.max(0, micros);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) (micros >> (exponent - 2)) & (SUB_BUCKETS - 1);
+            return Math.min(BUCKETS - 1, (exponent - 1) * SUB_BUCKETS + sub);
+        }
+
+        static long upperBoundMicros(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket + 1;
+            }
+            int exponent = bucket / SUB_BUCKETS + 1;
+            int sub = bucket % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + sub + 1) << (exponent - 2);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ednh.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Stage timers and outcome counters for webhook ingestion
+ * Stages are timed as ednh.webhook.stage{stage} with histograms. Outcomes are counted as
+ * ednh.webhook.outcome{app, outcome, reason}; only registered applications get their own
+ * app tag, and only up to a fixed number of them, so callers cannot inflate cardinality.
+ */
+@Component
+public class WebhookMetrics {
+
+    public static final String UNKNOWN_APP = "unknown";
+    public static final String OTHER_APPS = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxTaggedApps;
+    private final Map<String, Timer> stages = new ConcurrentHashMap<>();
+    private final Set<String> taggedApps = ConcurrentHashMap.newKeySet();
+
+    public WebhookMetrics(MeterRegistry meterRegistry,
+                          @Value("${notifications.webhook.metrics.max-tagged-apps:100}") int maxTaggedApps) {
+        this.meterRegistry = meterRegistry;
+        this.maxTaggedApps = maxTaggedApps;
+    }
+
+    public <T> T time(String stage, Supplier<T> action) {
+        return stage(stage).record(action);
+    }
+
+    public void time(String stage, Runnable action) {
+        stage(stage).record(action);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, String stage) {
+        sample.stop(stage(stage));
+    }
+
+    /**
+     * @param appId id of a registered application, or null if the caller was not identified
+     */
+    public void outcome(String appId, String outcome, String reason) {
+        meterRegistry.counter("ednh.webhook.outcome",
+                "app", appTag(appId), "outcome", outcome, "reason", reason).increment();
+    }
+
+    private Timer stage(String stage) {
+        return stages.computeIfAbsent(stage, name -> Timer.builder("ednh.webhook.stage")
+                .description("Time spent in one stage of webhook ingestion")
+                .tag("stage", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private String appTag(String appId) {
+        if (appId == null) {
+            return UNKNOWN_APP;
+        }
+        if (taggedApps.contains(appId)) {
+            return appId;
+        }
+        // Racing callers may overshoot the cap by a few; the bound still holds in practice
+        if (taggedApps.size() < maxTaggedApps) {
+            taggedApps.add(appId);
+            return appId;
+        }
+        return OTHER_APPS;
+    }
+}
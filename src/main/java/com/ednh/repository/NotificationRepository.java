@@ -15,7 +15,7 @@ import java.util.List;
  * Provides queries for notification management and filtering
  */
 @Repository
-public interface NotificationRepository extends MongoRepository<Notification, String> {
+public interface NotificationRepository extends MongoRepository<Notification, String>, NotificationRepositoryCustom {
 
     // Find notifications by user
     Page<Notification> findByUserIdOrderByCreatedAtDesc(String userId, Pageable pageable);
@@ -41,6 +41,14 @@ public interface NotificationRepository extends MongoRepository<Notification, St
     List<Notification> findByUserIdAndCreatedAtAfterOrderByCreatedAtDesc(
             String userId, LocalDateTime since);
 
+    // Undelivered notifications not in the given status after a cursor, oldest first (offline replay)
+    List<Notification> findByUserIdAndDeliveredFalseAndStatusNotAndIdGreaterThanOrderByIdAsc(
+            String userId, Notification.Status status, String afterId, Pageable pageable);
+
+    // Notifications not in the given status after a cursor, oldest first (event stream resume)
+    List<Notification> findByUserIdAndStatusNotAndIdGreaterThanOrderByIdAsc(
+            String userId, Notification.Status status, String afterId, Pageable pageable);
+
     // Multi-tenant queries
     Page<Notification> findByUserIdAndTenantIdOrderByCreatedAtDesc(
             String userId, String tenantId, Pageable pageable);
@@ -0,0 +1,50 @@
+package com.ednh.repository;
+
+import com.ednh.entity.Notification;
+import com.ednh.entity.NotificationTombstone;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom repository fragment for set-based notification updates
+ * Each method runs as a single multi-document command scoped to the owning user;
+ * mutations stamp the given change version on the documents they actually change
+ */
+public interface NotificationRepositoryCustom {
+
+    UpdateResult markReadByIds(String userId, Collection<String> ids, long version);
+
+    UpdateResult markUnreadByIds(String userId, Collection<String> ids, long version);
+
+    UpdateResult archiveByIds(String userId, Collection<String> ids, long version);
+
+    // Writes a tombstone per owned notification before removing them; safe to repeat after a failure
+    long deleteByIds(String userId, Collection<String> ids, long version);
+
+    UpdateResult markDeliveredByIds(String userId, Collection<String> ids);
+
+    // Predicate-based updates, applied in chunks of at most chunkSize documents
+    long markAllRead(String userId, long version, int chunkSize);
+
+    long archiveAllBefore(String userId, ObjectId beforeId, long version, int chunkSize);
+
+    // Outbox: leases up to batchSize pending dispatches of one priority to owner and returns them
+    List<Notification> claimDispatchBatch(String owner, Notification.Priority priority, int batchSize, Duration lease);
+
+    long completeDispatch(String owner, Collection<String> ids);
+
+    // Id of the oldest notification of the priority still waiting for dispatch, if any
+    ObjectId oldestPendingDispatch(Notification.Priority priority);
+
+    long countPendingDispatch(Notification.Priority priority);
+
+    // Changes after the (version, id) cursor up to maxVersion, ordered by version then id; afterId may be null
+    List<Notification> findChangedSince(String userId, long version, String afterId, long maxVersion, int limit);
+
+    List<NotificationTombstone> findTombstonesSince(String userId, long version, String afterId, long maxVersion,
+                                                    int limit);
+}
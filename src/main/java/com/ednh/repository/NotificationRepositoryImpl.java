@@ -0,0 +1,247 @@
+package com.ednh.repository;
+
+import com.ednh.entity.Notification;
+import com.ednh.entity.NotificationTombstone;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * MongoTemplate-backed implementation of {@link NotificationRepositoryCustom}
+ * Timestamps and change versions are only set on documents whose status actually changes, so the
+ * reported modified count reflects real transitions
+ */
+@RequiredArgsConstructor
+public class NotificationRepositoryImpl implements NotificationRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public UpdateResult markReadByIds(String userId, Collection<String> ids, long version) {
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("readAt").toValue(keepIfStatus(Notification.Status.READ, "readAt", LocalDateTime.now()))
+                .set("changeVersion").toValue(keepIfStatus(Notification.Status.READ, "changeVersion", version))
+                .set("status").toValue(Notification.Status.READ.name());
+
+        return mongoTemplate.updateMulti(ownedBy(userId, ids), update, Notification.class);
+    }
+
+    @Override
+    public UpdateResult markUnreadByIds(String userId, Collection<String> ids, long version) {
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("changeVersion").toValue(keepIfStatus(Notification.Status.UNREAD, "changeVersion", version))
+                .set("status").toValue(Notification.Status.UNREAD.name())
+                .unset("readAt");
+
+        return mongoTemplate.updateMulti(ownedBy(userId, ids), update, Notification.class);
+    }
+
+    @Override
+    public UpdateResult archiveByIds(String userId, Collection<String> ids, long version) {
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("archivedAt").toValue(keepIfStatus(Notification.Status.ARCHIVED, "archivedAt", LocalDateTime.now()))
+                .set("changeVersion").toValue(keepIfStatus(Notification.Status.ARCHIVED, "changeVersion", version))
+                .set("status").toValue(Notification.Status.ARCHIVED.name())
+                .set("archived").toValue(true);
+
+        return mongoTemplate.updateMulti(ownedBy(userId, ids), update, Notification.class);
+    }
+
+    @Override
+    public long deleteByIds(String userId, Collection<String> ids, long version) {
+        Query owned = ownedBy(userId, ids);
+        owned.fields().include("_id");
+        List<String> ownedIds = mongoTemplate.find(owned, Notification.class).stream()
+                .map(Notification::getId)
+                .toList();
+        if (ownedIds.isEmpty()) {
+            return 0;
+        }
+
+        // Tombstones first: if the removal then fails, repeating the call finishes it
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationTombstone.class)
+                .upsert(ownedIds.stream()
+                        .map(id -> Pair.of(Query.query(Criteria.where("_id").is(id)), new Update()
+                                .set("userId", userId)
+                                .set("changeVersion", version)
+                                .set("deletedAt", now)))
+                        .toList())
+                .execute();
+
+        return mongoTemplate.remove(ownedBy(userId, ownedIds), Notification.class).getDeletedCount();
+    }
+
+    @Override
+    public UpdateResult markDeliveredByIds(String userId, Collection<String> ids) {
+        Query undelivered = ownedBy(userId, ids).addCriteria(Criteria.where("delivered").is(false));
+        Update update = new Update()
+                .set("delivered", true)
+                .set("deliveredAt", LocalDateTime.now());
+
+        return mongoTemplate.updateMulti(undelivered, update, Notification.class);
+    }
+
+    @Override
+    public long markAllRead(String userId, long version, int chunkSize) {
+        Criteria unread = Criteria.where("userId").is(userId)
+                .and("status").is(Notification.Status.UNREAD);
+
+        return updateInChunks(unread, new Update()
+                .set("status", Notification.Status.READ)
+                .set("readAt", LocalDateTime.now())
+                .set("changeVersion", version), chunkSize);
+    }
+
+    @Override
+    public long archiveAllBefore(String userId, ObjectId beforeId, long version, int chunkSize) {
+        Criteria notArchived = Criteria.where("userId").is(userId)
+                .and("status").in(Notification.Status.UNREAD, Notification.Status.READ)
+                .and("_id").lt(beforeId);
+
+        return updateInChunks(notArchived, new Update()
+                .set("status", Notification.Status.ARCHIVED)
+                .set("archived", true)
+                .set("archivedAt", LocalDateTime.now())
+                .set("changeVersion", version), chunkSize);
+    }
+
+    @Override
+    public List<Notification> claimDispatchBatch(String owner, Notification.Priority priority, int batchSize,
+                                                 Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria claimable = pendingDispatch(priority)
+                .orOperator(Criteria.where("dispatchLeaseUntil").exists(false),
+                        Criteria.where("dispatchLeaseUntil").lt(now));
+
+        Query candidates = new Query(claimable)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(batchSize);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, Notification.class).stream()
+                .map(Notification::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Re-checking the predicate makes the claim atomic per document against other dispatchers
+        Query claim = new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), claimable));
+        mongoTemplate.updateMulti(claim, new Update()
+                .set("dispatchOwner", owner)
+                .set("dispatchLeaseUntil", now.plus(lease))
+                .inc("dispatchAttempts", 1), Notification.class);
+
+        return mongoTemplate.find(Query.query(Criteria.where("_id").in(ids).and("dispatchOwner").is(owner)),
+                Notification.class);
+    }
+
+    @Override
+    public long completeDispatch(String owner, Collection<String> ids) {
+        Query claimed = Query.query(Criteria.where("_id").in(ids).and("dispatchOwner").is(owner));
+        Update done = new Update()
+                .unset("dispatchPending")
+                .unset("dispatchOwner")
+                .unset("dispatchLeaseUntil");
+
+        return mongoTemplate.updateMulti(claimed, done, Notification.class).getModifiedCount();
+    }
+
+    @Override
+    public ObjectId oldestPendingDispatch(Notification.Priority priority) {
+        Query oldest = Query.query(pendingDispatch(priority))
+                .with(Sort.by(Sort.Direction.ASC, "_id"));
+        oldest.fields().include("_id");
+        Notification notification = mongoTemplate.findOne(oldest, Notification.class);
+        return notification != null ? new ObjectId(notification.getId()) : null;
+    }
+
+    @Override
+    public long countPendingDispatch(Notification.Priority priority) {
+        return mongoTemplate.count(Query.query(pendingDispatch(priority)), Notification.class);
+    }
+
+    @Override
+    public List<Notification> findChangedSince(String userId, long version, String afterId, long maxVersion,
+                                               int limit) {
+        return mongoTemplate.find(changedSince(userId, version, afterId, maxVersion, limit), Notification.class);
+    }
+
+    @Override
+    public List<NotificationTombstone> findTombstonesSince(String userId, long version, String afterId,
+                                                           long maxVersion, int limit) {
+        return mongoTemplate.find(changedSince(userId, version, afterId, maxVersion, limit),
+                NotificationTombstone.class);
+    }
+
+    /**
+     * Applies the update to everything matching the predicate, one _id range at a time.
+     * The predicate must stop matching once a document is updated, so each pass picks up
+     * where the previous one ended; the last pass is a plain updateMany on the predicate.
+     */
+    private long updateInChunks(Criteria predicate, Update update, int chunkSize) {
+        long modified = 0;
+
+        while (true) {
+            Query boundaryQuery = new Query(predicate)
+                    .with(Sort.by(Sort.Direction.ASC, "_id"))
+                    .skip(chunkSize - 1L)
+                    .limit(1);
+            boundaryQuery.fields().include("_id");
+            Notification boundary = mongoTemplate.findOne(boundaryQuery, Notification.class);
+
+            Query chunk = boundary == null
+                    ? new Query(predicate)
+                    : new Query(new Criteria().andOperator(predicate,
+                            Criteria.where("_id").lte(new ObjectId(boundary.getId()))));
+
+            modified += mongoTemplate.updateMulti(chunk, update, Notification.class).getModifiedCount();
+
+            if (boundary == null) {
+                return modified;
+            }
+        }
+    }
+
+    private Criteria pendingDispatch(Notification.Priority priority) {
+        return Criteria.where("dispatchPending").is(true).and("priority").is(priority);
+    }
+
+    private Query changedSince(String userId, long version, String afterId, long maxVersion, int limit) {
+        Criteria after = afterId == null
+                ? Criteria.where("changeVersion").gt(version)
+                : new Criteria().orOperator(
+                        Criteria.where("changeVersion").gt(version),
+                        Criteria.where("changeVersion").is(version).and("_id").gt(new ObjectId(afterId)));
+
+        return new Query(new Criteria().andOperator(Criteria.where("userId").is(userId), after,
+                Criteria.where("changeVersion").lte(maxVersion)))
+                .with(Sort.by(Sort.Direction.ASC, "changeVersion", "_id"))
+                .limit(limit);
+    }
+
+    private Query ownedBy(String userId, Collection<String> ids) {
+        return Query.query(Criteria.where("_id").in(ids).and("userId").is(userId));
+    }
+
+    private ConditionalOperators.Cond keepIfStatus(Notification.Status status, String field, Object otherwise) {
+        return ConditionalOperators.when(ComparisonOperators.valueOf("status").equalToValue(status.name()))
+                .thenValueOf(field)
+                .otherwise(otherwise);
+    }
+}
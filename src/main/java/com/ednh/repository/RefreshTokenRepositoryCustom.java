@@ -0,0 +1,30 @@
+package com.ednh.repository;
+
+import com.ednh.entity.RefreshToken;
+
+import java.time.LocalDateTime;
+
+/**
+ * Custom repository fragment for atomic refresh token updates
+ */
+public interface RefreshTokenRepositoryCustom {
+
+    /**
+     * Swaps a live token's hash for a new one and extends its expiry in one command
+     * @return the rotated token, or null if the old token is unknown, revoked or expired
+     */
+    RefreshToken rotate(String tokenHash, String newTokenHash, LocalDateTime newExpiryDate);
+
+    long revokeAllByUserId(String userId);
+
+    // Batched deletes for the cleanup job; each returns the number removed
+    int deleteRevokedBatch(int limit);
+
+    int deleteExpiredBatch(LocalDateTime now, int limit);
+
+    // Builds the TTL index on expiryDate
+    void ensureExpiryIndex();
+
+    // Drops documents and the unique index left by the pre-hash token format
+    void removeLegacyTokens();
+}
@@ -0,0 +1,104 @@
+package com.ednh.repository;
+
+import com.ednh.entity.RefreshToken;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * MongoTemplate-backed implementation of {@link RefreshTokenRepositoryCustom}
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RefreshTokenRepositoryImpl implements RefreshTokenRepositoryCustom {
+
+    private static final String LEGACY_TOKEN_INDEX = "token";
+    private static final String EXPIRY_INDEX = "expiryDate";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public RefreshToken rotate(String tokenHash, String newTokenHash, LocalDateTime newExpiryDate) {
+        LocalDateTime now = LocalDateTime.now();
+        // The TTL monitor runs about once a minute, so expiry is checked here as well
+        Query query = Query.query(Criteria.where("tokenHash").is(tokenHash)
+                .and("revoked").is(false)
+                .and("expiryDate").gt(now));
+        Update update = new Update()
+                .set("tokenHash", newTokenHash)
+                .set("expiryDate", newExpiryDate)
+                .set("rotatedAt", now);
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                RefreshToken.class);
+    }
+
+    @Override
+    public long revokeAllByUserId(String userId) {
+        Query query = Query.query(Criteria.where("userId").is(userId).and("revoked").is(false));
+        return mongoTemplate.updateMulti(query, Update.update("revoked", true), RefreshToken.class)
+                .getModifiedCount();
+    }
+
+    @Override
+    public int deleteRevokedBatch(int limit) {
+        return deleteBatch(Criteria.where("revoked").is(true), limit);
+    }
+
+    @Override
+    public int deleteExpiredBatch(LocalDateTime now, int limit) {
+        return deleteBatch(Criteria.where("expiryDate").lt(now), limit);
+    }
+
+    @Override
+    public void ensureExpiryIndex() {
+        // Same name the annotation-derived index would get, so existing deployments see no change
+        mongoTemplate.indexOps(RefreshToken.class).createIndex(new Index()
+                .on("expiryDate", Sort.Direction.ASC)
+                .named(EXPIRY_INDEX)
+                .expire(Duration.ZERO));
+    }
+
+    @Override
+    public void removeLegacyTokens() {
+        long removed = mongoTemplate.remove(Query.query(Criteria.where("tokenHash").exists(false)),
+                RefreshToken.class).getDeletedCount();
+
+        // A unique index on the old field would reject every new token after the first
+        IndexOperations indexOps = mongoTemplate.indexOps(RefreshToken.class);
+        boolean legacyIndex = indexOps.getIndexInfo().stream()
+                .anyMatch(index -> index.isIndexForFields(List.of(LEGACY_TOKEN_INDEX)));
+        if (legacyIndex) {
+            indexOps.dropIndex(LEGACY_TOKEN_INDEX + "_1");
+        }
+
+        if (removed > 0 || legacyIndex) {
+            log.info("Removed {} legacy refresh tokens (legacy index dropped: {})", removed, legacyIndex);
+        }
+    }
+
+    private int deleteBatch(Criteria criteria, int limit) {
+        Query query = Query.query(criteria).limit(limit);
+        query.fields().include("_id");
+        List<String> ids = mongoTemplate.find(query, RefreshToken.class).stream()
+                .map(RefreshToken::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        return (int) mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), RefreshToken.class)
+                .getDeletedCount();
+    }
+}
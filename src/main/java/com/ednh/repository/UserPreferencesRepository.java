@@ -4,6 +4,8 @@ import com.ednh.entity.UserPreferences;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -15,6 +17,8 @@ public interface UserPreferencesRepository extends MongoRepository<UserPreferenc
 
     Optional<UserPreferences> findByUserId(String userId);
 
+    List<UserPreferences> findByUserIdIn(Collection<String> userIds);
+
     boolean existsByUserId(String userId);
 
     void deleteByUserId(String userId);
@@ -18,8 +18,9 @@ public interface UserRepository extends MongoRepository<User, String> {
 
     Optional<User> findByEmail(String email);
 
-    @Query("{'$or': [{'username': ?0}, {'email': ?0}]}")
-    Optional<User> findByUsernameOrEmail(String usernameOrEmail);
+    // Everything but the password hash, for the user cache
+    @Query(value = "{'_id': ?0}", fields = "{'password': 0}")
+    Optional<User> findSnapshotById(String id);
 
     boolean existsByUsername(String username);
 
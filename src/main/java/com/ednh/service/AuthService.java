@@ -5,15 +5,17 @@ import com.ednh.dto.request.RefreshTokenRequest;
 import com.ednh.dto.request.RegisterRequest;
 import com.ednh.dto.response.AuthResponse;
 import com.ednh.dto.response.UserResponse;
-import com.ednh.entity.RefreshToken;
 import com.ednh.entity.User;
+import com.ednh.exception.ConflictException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Locale;
+
 /**
  * Authentication service handling login, registration, and token refresh
  * Coordinates between user management, JWT, and refresh token services
@@ -24,26 +26,21 @@ import org.springframework.transaction.annotation.Transactional;
 public class AuthService {
 
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginThrottle loginThrottle;
+    private final UserCache userCache;
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
 
     @Transactional
-    public AuthResponse register(RegisterRequest request) {
-        // Validate unique constraints
-        if (userService.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username already exists");
-        }
-
-        if (userService.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
-        }
+    public AuthResponse register(RegisterRequest request, String clientAddress) {
+        loginThrottle.checkAddress(clientAddress);
 
         // Create new user
         User user = User.builder()
                 .username(request.getUsername())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .email(request.getEmail().trim().toLowerCase(Locale.ROOT))
+                .password(passwordHashingService.encode(request.getPassword()))
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .role(User.Role.USER)
@@ -51,25 +48,33 @@ public class AuthService {
                 .enabled(true)
                 .build();
 
-        user = userService.save(user);
+        // Uniqueness is enforced by the username and email indexes
+        try {
+            user = userService.save(user);
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException(duplicateField(e) + " already exists");
+        }
         log.info("New user registered: {}", user.getUsername());
 
         // Generate tokens
         String accessToken = jwtService.generateAccessToken(user);
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+        String refreshToken = refreshTokenService.createRefreshToken(user);
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(refreshToken.getToken())
+                .refreshToken(refreshToken)
                 .expiresIn(jwtService.getAccessTokenExpiration() / 1000)
                 .user(UserResponse.fromUser(user))
                 .build();
     }
 
-    public AuthResponse login(LoginRequest request) {
+    public AuthResponse login(LoginRequest request, String clientAddress) {
+        // Throttle before any lookup or hashing
+        loginThrottle.checkLogin(clientAddress, request.getUsernameOrEmail());
+
         User user = (User) userService.loadUserByUsername(request.getUsernameOrEmail());
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new BadCredentialsException("Invalid credentials");
         }
 
@@ -77,26 +82,30 @@ public class AuthService {
             throw new RuntimeException("Account is disabled");
         }
 
+        loginThrottle.loginSucceeded(request.getUsernameOrEmail());
         log.info("User logged in: {}", user.getUsername());
 
         // Generate tokens
         String accessToken = jwtService.generateAccessToken(user);
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+        String refreshToken = refreshTokenService.createRefreshToken(user);
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(refreshToken.getToken())
+                .refreshToken(refreshToken)
                 .expiresIn(jwtService.getAccessTokenExpiration() / 1000)
                 .user(UserResponse.fromUser(user))
                 .build();
     }
 
     public AuthResponse refreshToken(RefreshTokenRequest request) {
-        RefreshToken refreshToken = refreshTokenService.findByToken(request.getRefreshToken())
-                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+        // Rotation is the only database round trip; the user usually comes from the cache
+        RefreshTokenService.IssuedToken rotated = refreshTokenService.rotate(request.getRefreshToken());
 
-        refreshToken = refreshTokenService.verifyExpiration(refreshToken);
-        User user = refreshToken.getUser();
+        User user = userCache.get(rotated.userId());
+        if (user == null || !UserCache.isActive(user)) {
+            refreshTokenService.revokeByToken(rotated.token());
+            throw new RuntimeException("Account is disabled");
+        }
 
         // Generate new access token
         String accessToken = jwtService.generateAccessToken(user);
@@ -105,12 +114,18 @@ public class AuthService {
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(refreshToken.getToken()) // Keep the same refresh token
+                .refreshToken(rotated.token())
                 .expiresIn(jwtService.getAccessTokenExpiration() / 1000)
                 .user(UserResponse.fromUser(user))
                 .build();
     }
 
+    private static String duplicateField(DuplicateKeyException e) {
+        // E11000 messages name the violated index, e.g. "index: email dup key: {...}"
+        String message = String.valueOf(e.getMessage());
+        return message.contains("index: email") ? "Email" : "Username";
+    }
+
     @Transactional
     public void logout(String refreshToken) {
         if (refreshToken != null) {
@@ -0,0 +1,89 @@
+package com.ednh.service;
+
+import com.ednh.entity.ChangeVersion;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Allocates per-user change versions for notification delta sync
+ * Versions are strictly increasing per user; one version may cover many documents.
+ * Writes may finish in a different order than their versions were allocated, so readers
+ * only see up to the committed version: the highest one below every unfinished write.
+ */
+@Service
+public class ChangeVersionService {
+
+    // Allocates the next version and records it as pending in one atomic update
+    private static final AggregationUpdate ALLOCATE = AggregationUpdate.from(List.of(
+            stage(new Document("$set", new Document("version",
+                    new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L))))),
+            stage(new Document("$set", new Document("pending",
+                    new Document("$concatArrays", List.of(
+                            new Document("$ifNull", List.of("$pending", List.of())),
+                            List.of(new Document("version", "$version").append("startedAt", "$$NOW")))))))));
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration commitTimeout;
+
+    public ChangeVersionService(MongoTemplate mongoTemplate,
+                                @Value("${notifications.changes.commit-timeout:2m}") Duration commitTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.commitTimeout = commitTimeout;
+    }
+
+    /**
+     * Runs a write stamped with the user's next version
+     * The version stays pending, and hides itself and later versions from delta sync,
+     * until the write returns or throws.
+     */
+    public <T> T stamp(String userId, LongFunction<T> write) {
+        ChangeVersion counter = mongoTemplate.findAndModify(
+                byUser(userId), ALLOCATE,
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                ChangeVersion.class);
+        long version = counter.getVersion();
+        try {
+            return write.apply(version);
+        } finally {
+            release(userId, version);
+        }
+    }
+
+    /**
+     * Highest version whose writes have all finished; delta sync serves nothing above it
+     */
+    public long committed(String userId) {
+        ChangeVersion counter = mongoTemplate.findById(userId, ChangeVersion.class);
+        return counter != null ? counter.committedVersion(Instant.now().minus(commitTimeout)) : 0;
+    }
+
+    private void release(String userId, long version) {
+        // Also drops entries abandoned by writers that never finished
+        Date abandonedBefore = Date.from(Instant.now().minus(commitTimeout));
+        mongoTemplate.updateFirst(byUser(userId), new Update().pull("pending", new Document("$or", List.of(
+                new Document("version", version),
+                new Document("startedAt", new Document("$lt", abandonedBefore))))), ChangeVersion.class);
+    }
+
+    private static Query byUser(String userId) {
+        return Query.query(Criteria.where("_id").is(userId));
+    }
+
+    private static AggregationOperation stage(Document stage) {
+        return context -> stage;
+    }
+}
@@ -0,0 +1,208 @@
+package com.ednh.service;
+
+import com.ednh.entity.Notification;
+import com.ednh.repository.NotificationRepository;
+import com.ednh.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Accumulates digest-eligible notifications per user and flushes them as one summary
+ * Buffers hold counts and a few recent titles rather than the events themselves.
+ * They live in memory on the node that received the events and are flushed on shutdown;
+ * a crash loses the pending summaries, not the stored events.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DigestService {
+
+    public static final String DIGEST_APP_ID = "digest";
+
+    private static final int MAX_TITLES = 5;
+
+    private final NotificationRepository notificationRepository;
+    private final ChangeVersionService changeVersionService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notifications.digest.event-storage:condensed}")
+    private EventStorage eventStorage;
+
+    private final Map<String, UserDigest> buffers = new ConcurrentHashMap<>();
+
+    private Counter buffered;
+    private Counter flushed;
+
+    /**
+     * How the individual events folded into a digest are persisted
+     */
+    public enum EventStorage {
+        // Stored in full, archived and delivered since the digest stands in for them
+        FULL,
+        // Stored archived and delivered, without message, data or source fields
+        CONDENSED,
+        // Not stored; only the digest is
+        NONE
+    }
+
+    @PostConstruct
+    void registerMeters() {
+        buffered = meterRegistry.counter("ednh.digest.buffered");
+        flushed = meterRegistry.counter("ednh.digest.flushed");
+        Gauge.builder("ednh.digest.users", buffers, Map::size)
+                .description("Users with a pending digest on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Folds the notification into the user's pending digest and stores the event as configured
+     * @return the stored event, or the unsaved notification when events are not stored
+     */
+    public Notification buffer(Notification notification, int intervalMinutes) {
+        buffers.compute(notification.getUserId(), (userId, digest) -> {
+            if (digest == null) {
+                digest = new UserDigest(notification.getTenantId(),
+                        Instant.now().plus(Duration.ofMinutes(intervalMinutes)));
+            }
+            digest.add(notification);
+            return digest;
+        });
+        buffered.increment();
+
+        return switch (eventStorage) {
+            case FULL -> {
+                notification.setStatus(Notification.Status.ARCHIVED);
+                notification.setArchived(true);
+                notification.setDelivered(true);
+                yield notificationRepository.save(notification);
+            }
+            case CONDENSED -> notificationRepository.save(condense(notification));
+            case NONE -> notification;
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.digest.flush-interval:1m}")
+    public void flushDue() {
+        Instant now = Instant.now();
+        // remove(key, value) takes the same lock as buffer(), so no event is added after removal
+        for (Map.Entry<String, UserDigest> entry : buffers.entrySet()) {
+            if (!entry.getValue().dueAt.isAfter(now) && buffers.remove(entry.getKey(), entry.getValue())) {
+                flush(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushAll() {
+        for (Map.Entry<String, UserDigest> entry : buffers.entrySet()) {
+            if (buffers.remove(entry.getKey(), entry.getValue())) {
+                flush(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void flush(String userId, UserDigest digest) {
+        try {
+            TenantContext.runAs(digest.tenantId, () -> changeVersionService.stamp(userId,
+                    version -> notificationRepository.save(digest.toNotification(userId, version))));
+            flushed.increment();
+            log.debug("Flushed digest of {} notifications for user: {}", digest.count, userId);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush digest for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private Notification condense(Notification notification) {
+        return Notification.builder()
+                .appId(notification.getAppId())
+                .userId(notification.getUserId())
+                .title(notification.getTitle())
+                .type(notification.getType())
+                .priority(notification.getPriority())
+                .tenantId(notification.getTenantId())
+                .status(Notification.Status.ARCHIVED)
+                .archived(true)
+                .delivered(true)
+                .changeVersion(notification.getChangeVersion())
+                .createdVersion(notification.getCreatedVersion())
+                .build();
+    }
+
+    /**
+     * Pending summary for one user; guarded by the buffers map's per-key locking
+     */
+    private static class UserDigest {
+
+        private final String tenantId;
+        private final Instant dueAt;
+        private final Map<String, Integer> countByApp = new LinkedHashMap<>();
+        private final Map<String, Integer> countByType = new HashMap<>();
+        private final Deque<String> recentTitles = new ArrayDeque<>(MAX_TITLES);
+        private Notification.Priority highestPriority = Notification.Priority.LOW;
+        private int count;
+
+        private UserDigest(String tenantId, Instant dueAt) {
+            this.tenantId = tenantId;
+            this.dueAt = dueAt;
+        }
+
+        private void add(Notification notification) {
+            count++;
+            countByApp.merge(notification.getAppId(), 1, Integer::sum);
+            if (notification.getType() != null) {
+                countByType.merge(notification.getType().name(), 1, Integer::sum);
+            }
+            if (notification.getPriority() != null && notification.getPriority().compareTo(highestPriority) > 0) {
+                highestPriority = notification.getPriority();
+            }
+            if (recentTitles.size() == MAX_TITLES) {
+                recentTitles.removeFirst();
+            }
+            recentTitles.addLast(notification.getTitle());
+        }
+
+        private Notification toNotification(String userId, long version) {
+            String byApp = countByApp.entrySet().stream()
+                    .map(e -> e.getValue() + " from " + e.getKey())
+                    .collect(Collectors.joining(", "));
+
+            return Notification.builder()
+                    .appId(DIGEST_APP_ID)
+                    .userId(userId)
+                    .tenantId(tenantId)
+                    .title("You have " + count + " new notification" + (count == 1 ? "" : "s"))
+                    .message(byApp)
+                    .type(Notification.NotificationType.INFO)
+                    .priority(highestPriority)
+                    .data(Map.of(
+                            "digest", true,
+                            "count", count,
+                            "byApp", countByApp,
+                            "byType", countByType,
+                            "recentTitles", List.copyOf(recentTitles)))
+                    .changeVersion(version)
+                    .createdVersion(version)
+                    .dispatchPending(true)
+                    .build();
+        }
+    }
+}
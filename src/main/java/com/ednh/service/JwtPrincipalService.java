@@ -0,0 +1,63 @@
+package com.ednh.service;
+
+import com.ednh.entity.User;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Resolves the authenticated principal for an access token
+ * The token only identifies the user; role, tenant and account status come from the
+ * {@link UserCache} snapshot so a demotion or tenant move applies within the cache TTL.
+ * Tokens issued before the user id claim was added fall back to loading the full user.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JwtPrincipalService {
+
+    private final JwtService jwtService;
+    private final UserCache userCache;
+    private final UserService userService;
+
+    /**
+     * @return the principal, or empty if the token is not a usable access token
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Optional<User> resolve(String token) {
+        Claims claims = jwtService.parseClaims(token);
+        if ("refresh".equals(claims.get(JwtService.TYPE_CLAIM, String.class))) {
+            return Optional.empty();
+        }
+
+        String userId = claims.get(JwtService.USER_ID_CLAIM, String.class);
+        if (userId == null) {
+            return resolveLegacy(token, claims.getSubject());
+        }
+
+        User snapshot = userCache.get(userId);
+        if (snapshot == null || !UserCache.isActive(snapshot)) {
+            log.debug("Rejected token of missing or inactive user: {}", userId);
+            return Optional.empty();
+        }
+
+        return Optional.of(User.builder()
+                .id(userId)
+                .username(snapshot.getUsername())
+                .role(snapshot.getRole())
+                .tenantId(snapshot.getTenantId())
+                .enabled(snapshot.isEnabled())
+                .accountNonLocked(snapshot.isAccountNonLocked())
+                .accountNonExpired(snapshot.isAccountNonExpired())
+                .credentialsNonExpired(snapshot.isCredentialsNonExpired())
+                .build());
+    }
+
+    private Optional<User> resolveLegacy(String token, String username) {
+        User user = (User) userService.loadUserByUsername(username);
+        return jwtService.isTokenValid(token, user) ? Optional.of(user) : Optional.empty();
+    }
+}
@@ -1,6 +1,7 @@
 package com.ednh.service;
 
 import com.ednh.config.JwtConfig;
+import com.ednh.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -25,6 +26,11 @@ import java.util.function.Function;
 @RequiredArgsConstructor
 public class JwtService {
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TENANT_CLAIM = "tid";
+    public static final String TYPE_CLAIM = "type";
+
     private final JwtConfig jwtConfig;
 
     public String extractUsername(String token) {
@@ -38,13 +44,21 @@ public class JwtService {
 
     public String generateAccessToken(UserDetails userDetails) {
         Map<String, Object> extraClaims = new HashMap<>();
-        extraClaims.put("type", "access");
+        extraClaims.put(TYPE_CLAIM, "access");
+        // The user id lets the filter resolve the principal from UserCache; role and tenant are for clients only
+        if (userDetails instanceof User user) {
+            extraClaims.put(USER_ID_CLAIM, user.getId());
+            extraClaims.put(ROLE_CLAIM, user.getRole().name());
+            if (user.getTenantId() != null) {
+                extraClaims.put(TENANT_CLAIM, user.getTenantId());
+            }
+        }
         return generateToken(extraClaims, userDetails, jwtConfig.getAccessTokenExpiration());
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
         Map<String, Object> extraClaims = new HashMap<>();
-        extraClaims.put("type", "refresh");
+        extraClaims.put(TYPE_CLAIM, "refresh");
         return generateToken(extraClaims, userDetails, jwtConfig.getRefreshTokenExpiration());
     }
 
@@ -72,6 +86,14 @@ public class JwtService {
         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
     }
 
+    /**
+     * Verifies signature and expiry in one parse and returns the claims
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
     private boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
@@ -0,0 +1,90 @@
+package com.ednh.service;
+
+import com.ednh.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-window attempt limits per client address and per account
+ * Checked before any password is hashed, so a credential-stuffing run is turned away
+ * cheaply. Counters are per node and held in memory.
+ */
+@Slf4j
+@Service
+public class LoginThrottle {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttemptsPerAddress;
+    private final int maxAttemptsPerAccount;
+    private final Duration addressWindow;
+    private final Duration accountWindow;
+
+    // Entries are never rewritten, so each expires one window after the first attempt
+    private final Cache<String, AtomicInteger> attemptsByAddress;
+    private final Cache<String, AtomicInteger> attemptsByAccount;
+
+    public LoginThrottle(
+            MeterRegistry meterRegistry,
+            @Value("${security.login-throttle.address.max-attempts:30}") int maxAttemptsPerAddress,
+            @Value("${security.login-throttle.address.window:1m}") Duration addressWindow,
+            @Value("${security.login-throttle.account.max-attempts:10}") int maxAttemptsPerAccount,
+            @Value("${security.login-throttle.account.window:5m}") Duration accountWindow) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttemptsPerAddress = maxAttemptsPerAddress;
+        this.maxAttemptsPerAccount = maxAttemptsPerAccount;
+        this.addressWindow = addressWindow;
+        this.accountWindow = accountWindow;
+        this.attemptsByAddress = Caffeine.newBuilder().expireAfterWrite(addressWindow).maximumSize(100_000).build();
+        this.attemptsByAccount = Caffeine.newBuilder().expireAfterWrite(accountWindow).maximumSize(100_000).build();
+    }
+
+    /**
+     * Counts an attempt from the address, e.g. a registration
+     * @throws TooManyRequestsException if the address is over its limit
+     */
+    public void checkAddress(String address) {
+        if (increment(attemptsByAddress, address) > maxAttemptsPerAddress) {
+            throw throttled("address", address, addressWindow);
+        }
+    }
+
+    /**
+     * Counts a login attempt against both the address and the account
+     * @throws TooManyRequestsException if either is over its limit
+     */
+    public void checkLogin(String address, String account) {
+        checkAddress(address);
+        if (increment(attemptsByAccount, normalize(account)) > maxAttemptsPerAccount) {
+            throw throttled("account", account, accountWindow);
+        }
+    }
+
+    /**
+     * Clears the account's count after a successful login
+     */
+    public void loginSucceeded(String account) {
+        attemptsByAccount.invalidate(normalize(account));
+    }
+
+    private int increment(Cache<String, AtomicInteger> attempts, String key) {
+        return attempts.get(key, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private TooManyRequestsException throttled(String scope, String key, Duration window) {
+        meterRegistry.counter("ednh.auth.throttled", "scope", scope).increment();
+        log.warn("Login attempts throttled for {}: {}", scope, key);
+        return new TooManyRequestsException("Too many attempts, please retry later", window);
+    }
+
+    private static String normalize(String account) {
+        return account.trim().toLowerCase(Locale.ROOT);
+    }
+}
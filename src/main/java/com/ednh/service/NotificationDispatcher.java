@@ -0,0 +1,276 @@
+package com.ednh.service;
+
+import com.ednh.channel.ChannelDispatcher;
+import com.ednh.dto.response.NotificationPushPayload;
+import com.ednh.entity.Notification;
+import com.ednh.repository.NotificationRepository;
+import com.ednh.tenant.TenantContext;
+import com.ednh.tenant.TenantRouting;
+import com.ednh.websocket.NotificationBackplane;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the notification outbox and fans entries out to the backplane and channels
+ * Entries are leased to one claim at a time and completed in bulk after publishing;
+ * an entry whose lease runs out before completion is claimed again, so dispatch is
+ * at-least-once and clients dedupe by notification id.
+ * Each priority is a separate lane. URGENT has its own loop and is never queued behind
+ * other traffic; HIGH, NORMAL and LOW share a loop with weighted batch sizes so that
+ * higher lanes drain faster while LOW still moves every round. Tenants whose data is
+ * routed elsewhere are drained one after another on the same loops.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationBackplane backplane;
+    private final ChannelDispatcher channelDispatcher;
+    private final TenantRouting tenantRouting;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notifications.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${notifications.outbox.lease:30s}")
+    private Duration lease;
+
+    @Value("${notifications.outbox.weight.high:4}")
+    private int highWeight;
+
+    @Value("${notifications.outbox.weight.normal:2}")
+    private int normalWeight;
+
+    @Value("${notifications.outbox.weight.low:1}")
+    private int lowWeight;
+
+    private final Map<Notification.Priority, Lane> lanes = new EnumMap<>(Notification.Priority.class);
+
+    private Counter dispatched;
+    private Counter skippedOffline;
+    private Counter failed;
+    private Counter channelFailed;
+
+    @PostConstruct
+    void registerMeters() {
+        dispatched = Counter.builder("ednh.outbox.dispatched")
+                .description("Outbox entries published to the backplane")
+                .register(meterRegistry);
+        skippedOffline = Counter.builder("ednh.outbox.skipped")
+                .description("Outbox entries completed without a push because the user was offline")
+                .register(meterRegistry);
+        failed = Counter.builder("ednh.outbox.failed")
+                .description("Outbox entries left for retry after a publish failure")
+                .register(meterRegistry);
+        channelFailed = Counter.builder("ednh.outbox.channel_failed")
+                .description("Published outbox entries whose hand-off to email and other channels failed")
+                .register(meterRegistry);
+
+        int maxWeight = Math.max(highWeight, Math.max(normalWeight, lowWeight));
+        lanes.put(Notification.Priority.URGENT, new Lane(Notification.Priority.URGENT, batchSize));
+        lanes.put(Notification.Priority.HIGH, new Lane(Notification.Priority.HIGH, laneBatch(highWeight, maxWeight)));
+        lanes.put(Notification.Priority.NORMAL, new Lane(Notification.Priority.NORMAL, laneBatch(normalWeight, maxWeight)));
+        lanes.put(Notification.Priority.LOW, new Lane(Notification.Priority.LOW, laneBatch(lowWeight, maxWeight)));
+    }
+
+    /**
+     * Reserved URGENT lane, polled on its own schedule
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.urgent-poll-interval:50ms}")
+    public void drainUrgent() {
+        Lane urgent = lanes.get(Notification.Priority.URGENT);
+        try {
+            for (String tenantId : tenantRouting.partitions()) {
+                TenantContext.runAs(tenantId, () -> {
+                    while (urgent.dispatchBatch() >= urgent.batchSize) {
+                        log.debug("Urgent outbox batch full, draining again");
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Urgent outbox drain failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Weighted round-robin over the HIGH, NORMAL and LOW lanes
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval:200ms}")
+    public void drain() {
+        List<Lane> shared = List.of(lanes.get(Notification.Priority.HIGH),
+                lanes.get(Notification.Priority.NORMAL), lanes.get(Notification.Priority.LOW));
+        try {
+            for (String tenantId : tenantRouting.partitions()) {
+                TenantContext.runAs(tenantId, () -> {
+                    // Keep going while any lane came back full
+                    boolean backlog = true;
+                    while (backlog) {
+                        backlog = false;
+                        for (Lane lane : shared) {
+                            backlog |= lane.dispatchBatch() >= lane.batchSize;
+                        }
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox drain failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Refreshes the depth and lag gauges
+     * Kept off the drain loops: counting the backlog after every drain would add two
+     * queries per lane and tenant to each poll
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.stats-interval:15s}")
+    public void refreshStats() {
+        try {
+            lanes.values().forEach(Lane::refreshStats);
+        } catch (RuntimeException e) {
+            log.warn("Outbox stats refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private int laneBatch(int weight, int maxWeight) {
+        return Math.max(1, batchSize * weight / maxWeight);
+    }
+
+    private class Lane {
+
+        private final Notification.Priority priority;
+        private final int batchSize;
+        private final Timer batchTimer;
+        private final Timer latency;
+
+        // Refreshed on the stats schedule; read by the gauges
+        private final AtomicLong depth = new AtomicLong();
+        private final AtomicLong lagMillis = new AtomicLong();
+
+        private Lane(Notification.Priority priority, int batchSize) {
+            this.priority = priority;
+            this.batchSize = batchSize;
+
+            String tag = priority.name().toLowerCase();
+            batchTimer = Timer.builder("ednh.outbox.batch")
+                    .description("Time to claim, publish and complete one outbox batch")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            latency = Timer.builder("ednh.outbox.latency")
+                    .description("Time from notification creation to publish")
+                    .tag("priority", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("ednh.outbox.depth", depth, AtomicLong::get)
+                    .description("Notifications awaiting dispatch")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            Gauge.builder("ednh.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                    .description("Age in seconds of the oldest notification awaiting dispatch")
+                    .tag("priority", tag)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Claims one batch, publishes it and completes what was published
+         * @return number of entries claimed
+         */
+        private int dispatchBatch() {
+            return batchTimer.record(() -> {
+                String claimToken = UUID.randomUUID().toString();
+                List<Notification> batch = notificationRepository.claimDispatchBatch(
+                        claimToken, priority, batchSize, lease);
+                if (batch.isEmpty()) {
+                    return 0;
+                }
+
+                List<Notification> completed = new ArrayList<>(batch.size());
+                for (Notification notification : batch) {
+                    if (publish(notification)) {
+                        completed.add(notification);
+                    }
+                }
+
+                if (!completed.isEmpty()) {
+                    // Completed before the channel hand-off, so its failure cannot re-publish the pushes
+                    notificationRepository.completeDispatch(claimToken,
+                            completed.stream().map(Notification::getId).toList());
+                    dispatchToChannels(completed);
+                }
+                log.debug("Dispatched {} outbox batch: claimed={}, completed={}",
+                        priority, batch.size(), completed.size());
+                return batch.size();
+            });
+        }
+
+        private void dispatchToChannels(List<Notification> completed) {
+            try {
+                // Channels only queue in memory here; their workers send in the background
+                channelDispatcher.dispatch(completed);
+            } catch (RuntimeException e) {
+                channelFailed.increment();
+                log.error("Failed to hand {} outbox entries to channels: {}", completed.size(), e.getMessage());
+            }
+        }
+
+        private boolean publish(Notification notification) {
+            try {
+                // Most users are offline most of the time: skip encoding and dispatch entirely
+                if (backplane.isUserOnline(notification.getUserId())) {
+                    backplane.publish(notification.getUserId(), NotificationPushPayload.fromNotification(notification));
+                    dispatched.increment();
+                } else {
+                    skippedOffline.increment();
+                }
+                if (notification.getCreatedAt() != null) {
+                    latency.record(Duration.between(notification.getCreatedAt(), LocalDateTime.now()));
+                }
+                return true;
+            } catch (RuntimeException e) {
+                // Left claimed; it becomes claimable again when the lease expires
+                failed.increment();
+                log.error("Failed to dispatch notification {}: {}", notification.getId(), e.getMessage());
+                return false;
+            }
+        }
+
+        private void refreshStats() {
+            long lag = 0;
+            long pending = 0;
+            for (String tenantId : tenantRouting.partitions()) {
+                ObjectId oldest = TenantContext.callAs(tenantId, () -> notificationRepository.oldestPendingDispatch(priority));
+                if (oldest != null) {
+                    lag = Math.max(lag, ageMillis(oldest));
+                    pending += TenantContext.callAs(tenantId, () -> notificationRepository.countPendingDispatch(priority));
+                }
+            }
+            lagMillis.set(lag);
+            depth.set(pending);
+        }
+
+        private long ageMillis(ObjectId id) {
+            return Math.max(0, System.currentTimeMillis() - id.getDate().getTime());
+        }
+    }
+}
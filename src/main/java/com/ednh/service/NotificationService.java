@@ -1,27 +1,43 @@
 package com.ednh.service;
 
+import com.ednh.config.BulkProperties;
 import com.ednh.dto.request.WebhookNotificationRequest;
+import com.ednh.dto.response.BulkActionResponse;
+import com.ednh.dto.response.NotificationChangesResponse;
+import com.ednh.dto.response.NotificationResponse;
 import com.ednh.entity.Application;
 import com.ednh.entity.Notification;
+import com.ednh.entity.NotificationTombstone;
 import com.ednh.entity.User;
+import com.ednh.entity.UserPreferences;
+import com.ednh.exception.WebhookRejectedException;
+import com.ednh.monitoring.WebhookMetrics;
 import com.ednh.repository.NotificationRepository;
 import com.ednh.repository.UserRepository;
+import com.ednh.tenant.TenantContext;
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for managing notifications
- * Handles notification creation, storage, and real-time delivery
+ * Handles notification creation and storage; real-time delivery is drained from
+ * the outbox by {@link NotificationDispatcher}
  */
 @Slf4j
 @Service
@@ -30,22 +46,39 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChangeVersionService changeVersionService;
+    private final DigestService digestService;
+    private final WebhookMetrics webhookMetrics;
+    private final BulkProperties bulkProperties;
 
     @Autowired
     private UserPreferencesService preferencesService;
 
+    /**
+     * Stored notification and the ingestion outcome for the caller to count
+     * Counted by the caller once the whole request has succeeded, so a later failure is
+     * not recorded as both a success and an error
+     */
+    public record Ingestion(Notification notification, String outcome, String reason) {
+    }
+
     @Transactional
-    public Notification createNotification(
+    public Ingestion createNotification(
             WebhookNotificationRequest request,
             Application app,
             String sourceIp,
             String userAgent) {
 
         // Validate user exists
-        Optional<User> user = userRepository.findById(request.getUserId());
+        Optional<User> user = webhookMetrics.time("user_lookup", () -> userRepository.findById(request.getUserId()));
         if (user.isEmpty()) {
-            throw new RuntimeException("User not found: " + request.getUserId());
+            throw new WebhookRejectedException("user_not_found", "User not found: " + request.getUserId());
+        }
+
+        // The recipient's tenant decides where the notification is stored
+        String tenantId = user.get().getTenantId();
+        if (app.getTenantId() != null && !app.getTenantId().equals(tenantId)) {
+            throw new WebhookRejectedException("tenant_mismatch", "User not found: " + request.getUserId());
         }
 
         // Create notification entity
@@ -57,45 +90,73 @@ public class NotificationService {
                 .type(request.getType())
                 .priority(request.getPriority())
                 .data(request.getData())
-                .tenantId(request.getTenantId())
+                .tenantId(tenantId)
                 .sourceIp(sourceIp)
                 .userAgent(userAgent)
                 .build();
 
-        // Check user preferences before saving/delivering
-        if (!preferencesService.shouldDeliverNotification(notification, request.getUserId())) {
-            log.info("Notification filtered by user preferences for user: {}", request.getUserId());
-            // Save the notification but mark it as filtered
-            notification.setStatus(Notification.Status.ARCHIVED);
-            return notificationRepository.save(notification);
-        }
+        return TenantContext.callAs(tenantId, () -> storeNotification(notification, app));
+    }
 
-        // Save to database
-        notification = notificationRepository.save(notification);
+    private Ingestion storeNotification(Notification notification, Application app) {
+        return changeVersionService.stamp(notification.getUserId(), version -> {
+            notification.setChangeVersion(version);
+            notification.setCreatedVersion(version);
+
+            // Check user preferences before saving/delivering
+            UserPreferences preferences = webhookMetrics.time("preferences",
+                    () -> preferencesService.getUserPreferences(notification.getUserId()));
+            if (!preferencesService.shouldDeliverNotification(notification, preferences)) {
+                log.info("Notification filtered by user preferences for user: {}", notification.getUserId());
+                // Save the notification but mark it as filtered
+                notification.setStatus(Notification.Status.ARCHIVED);
+                Notification filtered = webhookMetrics.time("insert", () -> notificationRepository.save(notification));
+                return new Ingestion(filtered, "filtered", "preferences");
+            }
 
-        log.info("Notification created: {} for user: {} from app: {}",
-                notification.getId(), request.getUserId(), app.getAppId());
+            // Low-priority traffic of digest users is summarised later instead of pushed now
+            if (preferences.isDigestEligible(notification.getPriority())) {
+                log.debug("Notification buffered for digest of user: {}", notification.getUserId());
+                Notification buffered = webhookMetrics.time("digest",
+                        () -> digestService.buffer(notification, preferences.getDigestIntervalMinutes()));
+                return new Ingestion(buffered, "digested", "none");
+            }
 
-        // Send real-time notification only if preferences allow
-        sendRealTimeNotification(notification);
+            // Outbox entry rides on the same single-document insert, so a push is never lost
+            notification.setDispatchPending(true);
+            Notification saved = webhookMetrics.time("insert", () -> notificationRepository.save(notification));
 
-        return notification;
+            log.info("Notification created: {} for user: {} from app: {}",
+                    saved.getId(), saved.getUserId(), app.getAppId());
+
+            return new Ingestion(saved, "queued", "none");
+        });
     }
 
-    private void sendRealTimeNotification(Notification notification) {
-        try {
-            // Send to user-specific topic
-            String destination = "/topic/notifications/" + notification.getUserId();
-            messagingTemplate.convertAndSend(destination, notification);
+    public long acknowledgeDelivery(String userId, List<String> notificationIds) {
+        long modified = notificationRepository.markDeliveredByIds(userId, notificationIds).getModifiedCount();
+        log.debug("User {} acknowledged {} notifications ({} newly delivered)",
+                userId, notificationIds.size(), modified);
+        return modified;
+    }
 
-            // Mark as delivered
-            notification.markAsDelivered();
-            notificationRepository.save(notification);
+    /**
+     * Undelivered notifications after the cursor that were owed a push, oldest first
+     * Archived ones were filtered by preferences or folded into a digest, never pushed
+     * live, so a reconnect must not push them either
+     */
+    public List<Notification> getUndeliveredAfter(String userId, String afterId, int limit) {
+        return notificationRepository.findByUserIdAndDeliveredFalseAndStatusNotAndIdGreaterThanOrderByIdAsc(
+                userId, Notification.Status.ARCHIVED, afterId, PageRequest.of(0, limit));
+    }
 
-            log.debug("Real-time notification sent to: {}", destination);
-        } catch (Exception e) {
-            log.error("Failed to send real-time notification: {}", e.getMessage());
-        }
+    /**
+     * Notifications after the cursor that were published live, oldest first
+     * Same predicate as the reconnect replay, without the delivered check
+     */
+    public List<Notification> getNotificationsAfter(String userId, String afterId, int limit) {
+        return notificationRepository.findByUserIdAndStatusNotAndIdGreaterThanOrderByIdAsc(
+                userId, Notification.Status.ARCHIVED, afterId, PageRequest.of(0, limit));
     }
 
     public Page<Notification> getUserNotifications(String userId, Pageable pageable) {
@@ -127,7 +188,10 @@ public class NotificationService {
         }
 
         notification.markAsRead();
-        return notificationRepository.save(notification);
+        return changeVersionService.stamp(userId, version -> {
+            notification.setChangeVersion(version);
+            return notificationRepository.save(notification);
+        });
     }
 
     // Add these methods to your existing NotificationService class
@@ -153,56 +217,151 @@ public class NotificationService {
     }
 
     @Transactional
-    public int performBulkAction(String action, List<String> notificationIds, String userId) {
-        int updatedCount = 0;
-
-        for (String notificationId : notificationIds) {
-            try {
-                Notification notification = getNotificationById(notificationId, userId);
-
-                switch (action.toLowerCase()) {
-                    case "read":
-                        if (notification.getStatus() != Notification.Status.READ) {
-                            notification.markAsRead();
-                            notificationRepository.save(notification);
-                            updatedCount++;
-                        }
-                        break;
-                    case "unread":
-                        if (notification.getStatus() != Notification.Status.UNREAD) {
-                            notification.setStatus(Notification.Status.UNREAD);
-                            notification.setReadAt(null);
-                            notificationRepository.save(notification);
-                            updatedCount++;
-                        }
-                        break;
-                    case "archive":
-                        if (!notification.isArchived()) {
-                            notification.archive();
-                            notificationRepository.save(notification);
-                            updatedCount++;
-                        }
-                        break;
-                    case "delete":
-                        notificationRepository.delete(notification);
-                        updatedCount++;
-                        break;
-                    default:
-                        throw new RuntimeException("Invalid action: " + action);
-                }
-            } catch (RuntimeException e) {
-                log.warn("Failed to perform action '{}' on notification {}: {}",
-                        action, notificationId, e.getMessage());
+    public BulkActionResponse performBulkAction(String action, List<String> notificationIds, String userId) {
+        // Ids that are missing or owned by another user simply don't match the filter
+        String normalizedAction = action.toLowerCase();
+        if (!List.of("read", "unread", "archive", "delete").contains(normalizedAction)) {
+            throw new RuntimeException("Invalid action: " + action);
+        }
+
+        int requested = notificationIds.size();
+        BulkActionResponse response = changeVersionService.stamp(userId, version -> switch (normalizedAction) {
+            case "read" -> bulkResult(normalizedAction, requested,
+                    notificationRepository.markReadByIds(userId, notificationIds, version));
+            case "unread" -> bulkResult(normalizedAction, requested,
+                    notificationRepository.markUnreadByIds(userId, notificationIds, version));
+            case "archive" -> bulkResult(normalizedAction, requested,
+                    notificationRepository.archiveByIds(userId, notificationIds, version));
+            default -> {
+                long deleted = notificationRepository.deleteByIds(userId, notificationIds, version);
+                yield BulkActionResponse.of(normalizedAction, requested, deleted, deleted);
+            }
+        });
+
+        log.info("Bulk action '{}' for user {}: requested={}, matched={}, modified={}",
+                normalizedAction, userId, requested, response.getMatched(), response.getModified());
+
+        return response;
+    }
+
+    private static BulkActionResponse bulkResult(String action, int requested, UpdateResult result) {
+        return BulkActionResponse.of(action, requested, result.getMatchedCount(), result.getModifiedCount());
+    }
+
+    /**
+     * Marks every unread notification of the user as read.
+     * Runs off the request thread; large inboxes are updated in bounded chunks.
+     */
+    @Async
+    public CompletableFuture<Long> markAllAsRead(String userId) {
+        long modified = changeVersionService.stamp(userId,
+                version -> notificationRepository.markAllRead(userId, version, bulkProperties.getChunkSize()));
+        log.info("Marked {} notifications as read for user: {}", modified, userId);
+        return CompletableFuture.completedFuture(modified);
+    }
+
+    /**
+     * Archives every non-archived notification of the user created before the given id.
+     * Runs off the request thread; large inboxes are updated in bounded chunks.
+     */
+    @Async
+    public CompletableFuture<Long> archiveAllBefore(String userId, ObjectId beforeId) {
+        long modified = changeVersionService.stamp(userId, version ->
+                notificationRepository.archiveAllBefore(userId, beforeId, version, bulkProperties.getChunkSize()));
+        log.info("Archived {} notifications before {} for user: {}", modified, beforeId, userId);
+        return CompletableFuture.completedFuture(modified);
+    }
+
+    /**
+     * Returns changes after the cursor, oldest first, at most limit entries.
+     * The cursor is "version" or "version:lastId"; without one only the current cursor
+     * is returned, for clients that have just loaded the full feed. Only committed
+     * versions are served, so a cursor never moves past a write that is still running.
+     */
+    public NotificationChangesResponse getChangesSince(String userId, String since, int limit) {
+        if (since == null || since.isBlank()) {
+            return NotificationChangesResponse.builder()
+                    .created(List.of())
+                    .updated(List.of())
+                    .deleted(List.of())
+                    .cursor(String.valueOf(changeVersionService.committed(userId)))
+                    .build();
+        }
+
+        long sinceVersion;
+        String afterId = null;
+        try {
+            String[] parts = since.split(":", 2);
+            sinceVersion = Long.parseLong(parts[0]);
+            if (parts.length > 1) {
+                afterId = parts[1];
             }
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor: " + since);
         }
+        if (afterId != null && !ObjectId.isValid(afterId)) {
+            throw new RuntimeException("Invalid cursor: " + since);
+        }
+
+        // Versions above the committed one may still be joined by slower writes
+        long committed = changeVersionService.committed(userId);
+
+        // Fetch one extra from each source to know whether another page follows
+        List<Notification> changed =
+                notificationRepository.findChangedSince(userId, sinceVersion, afterId, committed, limit + 1);
+        List<NotificationTombstone> tombstones =
+                notificationRepository.findTombstonesSince(userId, sinceVersion, afterId, committed, limit + 1);
+
+        List<Change> merged = new ArrayList<>(changed.size() + tombstones.size());
+        changed.forEach(n -> merged.add(new Change(n.getChangeVersion(), n.getId(), n)));
+        tombstones.forEach(t -> merged.add(new Change(t.getChangeVersion(), t.getId(), null)));
+        // Hex ObjectIds of equal length sort like the ids themselves
+        merged.sort(Comparator.comparingLong(Change::version).thenComparing(Change::id));
+
+        List<NotificationResponse> created = new ArrayList<>();
+        List<NotificationChangesResponse.StateChange> updated = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        List<Change> page = merged.subList(0, Math.min(limit, merged.size()));
+
+        for (Change change : page) {
+            if (change.notification() == null) {
+                deleted.add(change.id());
+            } else if (isCreatedAfter(change.notification(), sinceVersion, afterId)) {
+                created.add(NotificationResponse.fromNotification(change.notification()));
+            } else {
+                updated.add(NotificationChangesResponse.StateChange.fromNotification(change.notification()));
+            }
+        }
+
+        Change last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return NotificationChangesResponse.builder()
+                .created(created)
+                .updated(updated)
+                .deleted(deleted)
+                .cursor(last != null ? last.version() + ":" + last.id() : since)
+                .hasMore(merged.size() > limit)
+                .build();
+    }
+
+    private boolean isCreatedAfter(Notification notification, long sinceVersion, String afterId) {
+        Long createdVersion = notification.getCreatedVersion();
+        if (createdVersion == null) {
+            return false;
+        }
+        // Only the creating document carries its creation version, so an equal version
+        // means it was created in the part of that version the client has not seen yet
+        return createdVersion > sinceVersion
+                || (createdVersion == sinceVersion && afterId != null && notification.getId().compareTo(afterId) > 0);
+    }
 
-        return updatedCount;
+    private record Change(long version, String id, Notification notification) {
     }
 
     @Transactional
     public void deleteNotification(String notificationId, String userId) {
         Notification notification = getNotificationById(notificationId, userId);
-        notificationRepository.delete(notification);
+        changeVersionService.stamp(userId,
+                version -> notificationRepository.deleteByIds(userId, List.of(notification.getId()), version));
         log.info("Notification {} deleted for user: {}", notificationId, userId);
     }
 
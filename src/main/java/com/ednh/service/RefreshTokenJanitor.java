@@ -0,0 +1,102 @@
+package com.ednh.service;
+
+import com.ednh.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Removes revoked and expired refresh tokens in paced batches
+ * The TTL index removes expired tokens too, but only once built and at the TTL monitor's
+ * pace; revoked tokens are never removed by it. One node runs the job at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenJanitor {
+
+    private static final String LOCK_NAME = "refresh-token-cleanup";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.refresh-token-cleanup.batch-size:500}")
+    private int batchSize;
+
+    @Value("${security.refresh-token-cleanup.batch-pause:200ms}")
+    private Duration batchPause;
+
+    @Value("${security.refresh-token-cleanup.max-batches:200}")
+    private int maxBatches;
+
+    @Value("${security.refresh-token-cleanup.lease:10m}")
+    private Duration lease;
+
+    private Counter removedRevoked;
+    private Counter removedExpired;
+
+    @PostConstruct
+    void registerMeters() {
+        removedRevoked = Counter.builder("ednh.refresh_tokens.removed")
+                .description("Refresh tokens removed by the cleanup job")
+                .tag("reason", "revoked")
+                .register(meterRegistry);
+        removedExpired = Counter.builder("ednh.refresh_tokens.removed")
+                .description("Refresh tokens removed by the cleanup job")
+                .tag("reason", "expired")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${security.refresh-token-cleanup.interval:15m}",
+            initialDelayString = "${security.refresh-token-cleanup.initial-delay:1m}")
+    public void cleanup() {
+        try {
+            if (!schedulerLockService.tryAcquire(LOCK_NAME, lease)) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Refresh token cleanup skipped: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            long revoked = drain(() -> refreshTokenRepository.deleteRevokedBatch(batchSize), removedRevoked);
+            LocalDateTime now = LocalDateTime.now();
+            long expired = drain(() -> refreshTokenRepository.deleteExpiredBatch(now, batchSize), removedExpired);
+            if (revoked + expired > 0) {
+                log.info("Refresh token cleanup removed {} revoked and {} expired tokens", revoked, expired);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Refresh token cleanup failed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            schedulerLockService.release(LOCK_NAME);
+        }
+    }
+
+    private long drain(IntSupplier batch, Counter counter) throws InterruptedException {
+        long total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int removed = batch.getAsInt();
+            counter.increment(removed);
+            total += removed;
+            if (removed < batchSize) {
+                break;
+            }
+            // Leaves room for regular traffic between batches
+            Thread.sleep(batchPause.toMillis());
+        }
+        return total;
+    }
+}
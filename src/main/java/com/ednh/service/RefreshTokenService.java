@@ -5,65 +5,115 @@ import com.ednh.entity.User;
 import com.ednh.repository.RefreshTokenRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Base64;
+import java.util.HexFormat;
 
 /**
  * Service for managing refresh tokens
- * Handles token creation, validation, and cleanup
+ * Handles token creation, rotation, and revocation. Tokens are looked up by their SHA-256
+ * hash and name their user by id, so no user reference is resolved on refresh
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenService {
 
+    private static final int TOKEN_BYTES = 32;
+
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtService jwtService;
 
-    public RefreshToken createRefreshToken(User user) {
-        // Revoke existing refresh tokens for the user
-        refreshTokenRepository.deleteByUser(user);
-
-        RefreshToken refreshToken = RefreshToken.builder()
-                .token(UUID.randomUUID().toString())
-                .user(user)
-                .expiryDate(LocalDateTime.now().plusSeconds(
-                        jwtService.getAccessTokenExpiration() / 1000 * 7)) // 7 times access token expiration
-                .build();
+    private final SecureRandom secureRandom = new SecureRandom();
 
-        return refreshTokenRepository.save(refreshToken);
+    /**
+     * Token handed to the client together with the user it belongs to
+     */
+    public record IssuedToken(String token, String userId) {
     }
 
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+    /**
+     * Issues a refresh token for a new login session
+     * @return the token to hand to the client; only its hash is stored
+     */
+    public String createRefreshToken(User user) {
+        String token = newToken();
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(token))
+                .userId(user.getId())
+                .expiryDate(nextExpiryDate())
+                .build());
+
+        return token;
     }
 
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.isExpired() || token.isRevoked()) {
-            refreshTokenRepository.delete(token);
+    /**
+     * Replaces the presented token with a new one in a single atomic update
+     * The presented token stops working immediately, so a replayed token is rejected
+     */
+    public IssuedToken rotate(String token) {
+        String newToken = newToken();
+        RefreshToken rotated = refreshTokenRepository.rotate(hash(token), hash(newToken), nextExpiryDate());
+        if (rotated == null) {
             throw new RuntimeException("Refresh token expired or revoked. Please login again");
         }
-        return token;
+        return new IssuedToken(newToken, rotated.getUserId());
     }
 
     @Transactional
     public void revokeByUser(User user) {
-        refreshTokenRepository.deleteByUser(user);
+        refreshTokenRepository.revokeAllByUserId(user.getId());
     }
 
     @Transactional
     public void revokeByToken(String token) {
-        refreshTokenRepository.deleteByToken(token);
+        refreshTokenRepository.deleteByTokenHash(hash(token));
     }
 
+    /**
+     * Prepares the collection: removes tokens in the old format and builds the TTL index
+     * Runs unordered with the entity index build, which the sparse tokenHash index allows.
+     * Revoked tokens are removed by {@link RefreshTokenJanitor}
+     */
     @Async
-    public void cleanupExpiredTokens() {
-        log.info("Cleaning up expired refresh tokens");
-        refreshTokenRepository.deleteByRevokedTrue();
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareCollection() {
+        try {
+            refreshTokenRepository.removeLegacyTokens();
+            refreshTokenRepository.ensureExpiryIndex();
+        } catch (RuntimeException e) {
+            log.warn("Failed to prepare refresh token collection: {}", e.getMessage());
+        }
+    }
+
+    private LocalDateTime nextExpiryDate() {
+        // 7 times access token expiration
+        return LocalDateTime.now().plusSeconds(jwtService.getAccessTokenExpiration() / 1000 * 7);
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,59 @@
+package com.ednh.service;
+
+import com.ednh.config.ClusterProperties;
+import com.ednh.entity.SchedulerLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Mongo-backed leases that let a scheduled job run on one node at a time
+ * A lease is taken by upserting the job's document only if it is free or already ours;
+ * a node that dies holding a lease blocks the job until the lease runs out
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SchedulerLockService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ClusterProperties clusterProperties;
+
+    /**
+     * @return whether this node now holds the lease
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("_id").is(name).orOperator(
+                Criteria.where("lockedUntil").lte(now),
+                Criteria.where("owner").is(clusterProperties.getNodeId())));
+        Update update = new Update()
+                .set("owner", clusterProperties.getNodeId())
+                .set("lockedAt", now)
+                .set("lockedUntil", now.plus(lease));
+
+        try {
+            mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true),
+                    SchedulerLock.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Held by another node: the filter missed, so the upsert collided with its document
+            log.debug("Lock {} held by another node", name);
+            return false;
+        }
+    }
+
+    public void release(String name) {
+        Query query = Query.query(Criteria.where("_id").is(name).and("owner").is(clusterProperties.getNodeId()));
+        mongoTemplate.updateFirst(query, Update.update("lockedUntil", LocalDateTime.now()), SchedulerLock.class);
+    }
+}
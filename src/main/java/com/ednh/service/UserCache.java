@@ -0,0 +1,53 @@
+package com.ednh.service;
+
+import com.ednh.entity.User;
+import com.ednh.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache of user snapshots used when authenticating requests and refreshing tokens
+ * Snapshots are loaded without the password hash. Entries are evicted when the user is
+ * saved on this node; changes made elsewhere take effect within the TTL
+ */
+@Slf4j
+@Service
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> cache;
+
+    public UserCache(
+            UserRepository userRepository,
+            @Value("${security.user-cache.ttl:30s}") Duration ttl,
+            @Value("${security.user-cache.max-size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Snapshot of the user, or null if the user no longer exists
+     */
+    public User get(String userId) {
+        return cache.get(userId, id -> userRepository.findSnapshotById(id).orElse(null));
+    }
+
+    public void evict(String userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    public static boolean isActive(User user) {
+        return user.isEnabled() && user.isAccountNonLocked()
+                && user.isAccountNonExpired() && user.isCredentialsNonExpired();
+    }
+}
@@ -114,6 +114,15 @@ public class UserPreferencesService {
         if (request.getGroupingTimeWindowMinutes() != null) {
             preferences.setGroupingTimeWindowMinutes(request.getGroupingTimeWindowMinutes());
         }
+        if (request.getDigestEnabled() != null) {
+            preferences.setDigestEnabled(request.getDigestEnabled());
+        }
+        if (request.getDigestIntervalMinutes() != null) {
+            preferences.setDigestIntervalMinutes(Math.max(1, request.getDigestIntervalMinutes()));
+        }
+        if (request.getDigestMaxPriority() != null) {
+            preferences.setDigestMaxPriority(request.getDigestMaxPriority());
+        }
         if (request.getAutoArchiveEnabled() != null) {
             preferences.setAutoArchiveEnabled(request.getAutoArchiveEnabled());
         }
@@ -136,7 +145,11 @@ public class UserPreferencesService {
     }
 
     public boolean shouldDeliverNotification(Notification notification, String userId) {
-        UserPreferences preferences = getUserPreferences(userId);
+        return shouldDeliverNotification(notification, getUserPreferences(userId));
+    }
+
+    public boolean shouldDeliverNotification(Notification notification, UserPreferences preferences) {
+        String userId = preferences.getUserId();
 
         // Check if notifications are globally enabled
         if (!preferences.isNotificationsEnabled()) {
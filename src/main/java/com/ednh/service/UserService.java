@@ -8,22 +8,29 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
 import java.util.Optional;
 
 /**
  * User service implementing Spring Security UserDetailsService
- * Handles user-related operations and authentication
+ * Handles user-related operations and authentication. Logins always read the user, with
+ * its password hash and account flags, with indexed equality lookups on email or username
  */
 @Service
 @RequiredArgsConstructor
 public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        return userRepository.findByUsernameOrEmail(usernameOrEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + usernameOrEmail));
+        String identifier = usernameOrEmail.trim();
+        User user = findByIdentifier(identifier, identifier.contains("@"));
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found: " + usernameOrEmail);
+        }
+        return user;
     }
 
     public Optional<User> findByUsername(String username) {
@@ -42,7 +49,26 @@ public class UserService implements UserDetailsService {
         return userRepository.existsByEmail(email);
     }
 
+    /**
+     * @throws org.springframework.dao.DuplicateKeyException if the username or email is taken
+     */
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Disable, lock and role changes must reach authentication promptly
+        userCache.evict(saved.getId());
+        return saved;
+    }
+
+    private User findByIdentifier(String identifier, boolean email) {
+        if (!email) {
+            return userRepository.findByUsername(identifier).orElse(null);
+        }
+        // Emails are stored lower-case, except on accounts registered before that was enforced;
+        // usernames registered before '@' was disallowed may still look like emails
+        String normalized = identifier.toLowerCase(Locale.ROOT);
+        return userRepository.findByEmail(normalized)
+                .or(() -> normalized.equals(identifier) ? Optional.empty() : userRepository.findByEmail(identifier))
+                .or(() -> userRepository.findByUsername(identifier))
+                .orElse(null);
     }
 }
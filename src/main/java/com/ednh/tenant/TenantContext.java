@@ -0,0 +1,69 @@
+package com.ednh.tenant;
+
+import com.ednh.entity.User;
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+import java.util.function.Supplier;
+
+/**
+ * Tenant whose data the current thread reads and writes
+ * Set per request from the principal or the calling application, and carried into
+ * async tasks by the task executor. No tenant means the shared collections.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String get() {
+        return CURRENT.get();
+    }
+
+    public static void set(String tenantId) {
+        if (tenantId == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(tenantId);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static <T> T callAs(String tenantId, Supplier<T> action) {
+        String previous = get();
+        set(tenantId);
+        try {
+            return action.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void runAs(String tenantId, Runnable action) {
+        callAs(tenantId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Binds the caller's tenant to a task run on another thread
+     */
+    public static Runnable wrap(Runnable task) {
+        String tenantId = get();
+        return () -> runAs(tenantId, task);
+    }
+
+    public static String tenantOf(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof User user) {
+            return user.getTenantId();
+        }
+        return null;
+    }
+}
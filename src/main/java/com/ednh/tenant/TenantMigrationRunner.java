@@ -0,0 +1,159 @@
+package com.ednh.tenant;
+
+import com.ednh.config.MongoIndexInitializer;
+import com.ednh.entity.ChangeVersion;
+import com.ednh.entity.Notification;
+import com.ednh.entity.NotificationTombstone;
+import com.ednh.entity.User;
+import com.ednh.entity.UserPreferences;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves tenants' existing data out of the shared collections into their routed location
+ * Run as a one-off command: {@code java -jar app.jar --migrate-tenants=acme,globex}.
+ * Tenants must already be configured with a non-shared mode. Data is selected by the
+ * tenant's users, a batch of users at a time. Documents are copied with upserts and
+ * removed from the shared collections batch by batch, so an interrupted run can simply
+ * be repeated. The application exits when the migration completes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TenantMigrationRunner implements ApplicationRunner {
+
+    public static final String MIGRATE_OPTION = "migrate-tenants";
+
+    private final MongoTemplate mongoTemplate;
+    private final TenantRouting tenantRouting;
+    private final MongoIndexInitializer indexInitializer;
+    private final ApplicationContext applicationContext;
+
+    @Value("${tenancy.migration.batch-size:1000}")
+    private int batchSize;
+
+    private QueryMapper queryMapper;
+
+    @PostConstruct
+    void createQueryMapper() {
+        queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(MIGRATE_OPTION)) {
+            return;
+        }
+
+        List<String> tenants = args.getOptionValues(MIGRATE_OPTION).stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .filter(tenant -> !tenant.isEmpty())
+                .toList();
+
+        int exitCode = 0;
+        for (String tenantId : tenants) {
+            try {
+                migrate(tenantId);
+            } catch (RuntimeException e) {
+                log.error("Migration of tenant {} failed: {}", tenantId, e.getMessage(), e);
+                exitCode = 1;
+            }
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+    }
+
+    public void migrate(String tenantId) {
+        if (!tenantRouting.routedTenants().contains(tenantId)) {
+            throw new RuntimeException("Tenant " + tenantId + " is not configured with a non-shared mode");
+        }
+
+        // Build the target indexes first so the copy does not outrun them
+        indexInitializer.ensureIndexes(tenantId);
+
+        // Data is selected by owning user: tenantId on notifications and preferences is not reliably set
+        long notifications = 0;
+        long preferences = 0;
+        long versions = 0;
+        long tombstones = 0;
+        String lastUserId = null;
+        while (true) {
+            List<String> userIds = userIdsAfter(tenantId, lastUserId);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            notifications += move(tenantId, Notification.class, Criteria.where("userId").in(userIds));
+            preferences += move(tenantId, UserPreferences.class, Criteria.where("userId").in(userIds));
+            versions += move(tenantId, ChangeVersion.class, Criteria.where("_id").in(userIds));
+            tombstones += move(tenantId, NotificationTombstone.class, Criteria.where("userId").in(userIds));
+            lastUserId = userIds.get(userIds.size() - 1);
+        }
+
+        log.info("Migrated tenant {}: {} notifications, {} preferences, {} change versions, {} tombstones",
+                tenantId, notifications, preferences, versions, tombstones);
+    }
+
+    private List<String> userIdsAfter(String tenantId, String lastUserId) {
+        Criteria criteria = Criteria.where("tenantId").is(tenantId);
+        if (lastUserId != null) {
+            criteria = criteria.and("_id").gt(new ObjectId(lastUserId));
+        }
+        Query query = Query.query(criteria).with(Sort.by("_id")).limit(batchSize);
+        query.fields().include("_id");
+        return mongoTemplate.find(query, User.class).stream().map(User::getId).toList();
+    }
+
+    private long move(String tenantId, Class<?> entityType, Criteria criteria) {
+        String source = mongoTemplate.getCollectionName(entityType);
+        String target = TenantContext.callAs(tenantId, () -> mongoTemplate.getCollectionName(entityType));
+
+        // Mapped once against the entity, so ids are converted as they are stored
+        Document filter = queryMapper.getMappedObject(Query.query(criteria).getQueryObject(),
+                mongoTemplate.getConverter().getMappingContext().getPersistentEntity(entityType));
+
+        long moved = 0;
+        while (true) {
+            // Moved documents leave the source, so the first page is always the next batch
+            Query query = new BasicQuery(filter).with(Sort.by("_id")).limit(batchSize);
+            List<Document> batch = mongoTemplate.find(query, Document.class, source);
+            if (batch.isEmpty()) {
+                return moved;
+            }
+
+            List<WriteModel<Document>> writes = batch.stream()
+                    .<WriteModel<Document>>map(document -> new ReplaceOneModel<>(
+                            new Document("_id", document.get("_id")), document, new ReplaceOptions().upsert(true)))
+                    .toList();
+            TenantContext.runAs(tenantId, () -> mongoTemplate.getCollection(target).bulkWrite(writes));
+
+            List<Object> ids = batch.stream().map(document -> document.get("_id")).toList();
+            mongoTemplate.getCollection(source).deleteMany(new Document("_id", new Document("$in", ids)));
+
+            moved += batch.size();
+            log.debug("Moved {} {} documents of tenant {} to {}", moved, source, tenantId, target);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ednh.tenant;
+
+import com.ednh.config.TenancyProperties;
+import com.ednh.entity.ChangeVersion;
+import com.ednh.entity.Notification;
+import com.ednh.entity.NotificationTombstone;
+import com.ednh.entity.UserPreferences;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides where the current tenant's data lives
+ * Only per-user notification data is partitioned. Users, applications, tokens and
+ * locks stay in the default database because they are read before a tenant is known.
+ * Entities reference this bean from their collection name expression.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantRouting {
+
+    public static final Map<Class<?>, String> TENANT_COLLECTIONS = Map.of(
+            Notification.class, "notifications",
+            UserPreferences.class, "user_preferences",
+            ChangeVersion.class, "change_versions",
+            NotificationTombstone.class, "notification_tombstones");
+
+    public static final Set<String> TENANT_COLLECTION_NAMES = Set.copyOf(TENANT_COLLECTIONS.values());
+
+    private final TenancyProperties tenancyProperties;
+
+    /**
+     * Suffix appended to tenant-scoped collection names for the current tenant
+     */
+    public String collectionSuffix() {
+        String tenantId = TenantContext.get();
+        return modeOf(tenantId) == TenancyProperties.Mode.COLLECTION ? "_" + tenantId : "";
+    }
+
+    public TenancyProperties.Mode modeOf(String tenantId) {
+        TenancyProperties.Tenant tenant = tenantId != null ? tenancyProperties.getTenants().get(tenantId) : null;
+        return tenant != null ? tenant.getMode() : TenancyProperties.Mode.SHARED;
+    }
+
+    /**
+     * Tenants with data outside the shared collections
+     */
+    public List<String> routedTenants() {
+        List<String> tenants = new ArrayList<>();
+        tenancyProperties.getTenants().forEach((id, tenant) -> {
+            if (tenant.getMode() != TenancyProperties.Mode.SHARED) {
+                tenants.add(id);
+            }
+        });
+        Collections.sort(tenants);
+        return tenants;
+    }
+
+    /**
+     * Every place tenant-scoped data can live: the shared collections (null) and each routed tenant
+     */
+    public List<String> partitions() {
+        List<String> partitions = new ArrayList<>();
+        partitions.add(null);
+        partitions.addAll(routedTenants());
+        return partitions;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ednh.tenant;
+
+import com.ednh.config.TenancyProperties;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Database factory that sends tenant-scoped collections to the tenant's own database
+ * For tenants in DATABASE or DEDICATED mode the returned database is a view that resolves
+ * tenant-scoped collections in the tenant database and everything else in the default one,
+ * so repositories and templates need no tenant awareness.
+ */
+@Slf4j
+public class TenantRoutingMongoDatabaseFactory extends SimpleMongoClientDatabaseFactory {
+
+    private final String defaultDatabase;
+    private final String defaultUri;
+    private final TenancyProperties tenancyProperties;
+    // Client name and URI to settings with the shared pool, socket and metrics configuration
+    private final BiFunction<String, String, MongoClientSettings.Builder> clientSettings;
+    private final Map<String, MongoClient> dedicatedClients = new ConcurrentHashMap<>();
+
+    public TenantRoutingMongoDatabaseFactory(MongoClient mongoClient, String defaultDatabase, String defaultUri,
+                                             TenancyProperties tenancyProperties,
+                                             BiFunction<String, String, MongoClientSettings.Builder> clientSettings) {
+        super(mongoClient, defaultDatabase);
+        this.defaultDatabase = defaultDatabase;
+        this.defaultUri = defaultUri;
+        this.tenancyProperties = tenancyProperties;
+        this.clientSettings = clientSettings;
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase() {
+        String tenantId = TenantContext.get();
+        TenancyProperties.Tenant tenant = tenantId != null ? tenancyProperties.getTenants().get(tenantId) : null;
+        if (tenant == null || !tenant.getMode().ownsDatabase()) {
+            return super.getMongoDatabase();
+        }
+
+        String databaseName = tenant.getDatabase() != null ? tenant.getDatabase() : defaultDatabase + "_" + tenantId;
+        MongoDatabase tenantDatabase = tenant.getMode() == TenancyProperties.Mode.DEDICATED
+                ? dedicatedClient(tenantId, tenant).getDatabase(databaseName)
+                : super.getMongoDatabase(databaseName);
+        return routingView(super.getMongoDatabase(), tenantDatabase);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        dedicatedClients.values().forEach(MongoClient::close);
+        super.destroy();
+    }
+
+    private MongoClient dedicatedClient(String tenantId, TenancyProperties.Tenant tenant) {
+        return dedicatedClients.computeIfAbsent(tenantId, id -> {
+            // The tenant's own pool size wins over both the shared configuration and the URI
+            MongoClientSettings.Builder settings = clientSettings.apply("tenant-" + id,
+                    tenant.getUri() != null ? tenant.getUri() : defaultUri);
+            settings.applyToConnectionPoolSettings(pool -> pool
+                    .maxSize(tenant.getMaxPoolSize())
+                    .minSize(tenant.getMinPoolSize()));
+            log.info("Created dedicated MongoDB client for tenant {} (pool {}..{})",
+                    id, tenant.getMinPoolSize(), tenant.getMaxPoolSize());
+            return MongoClients.create(settings.build());
+        });
+    }
+
+    private static MongoDatabase routingView(MongoDatabase shared, MongoDatabase tenant) {
+        return (MongoDatabase) Proxy.newProxyInstance(MongoDatabase.class.getClassLoader(),
+                new Class<?>[]{MongoDatabase.class}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.getName().equals("equals") ? proxy == args[0] : invoke(method, shared, args);
+                    }
+                    // withCodecRegistry, withReadPreference and friends keep routing
+                    if (method.getName().startsWith("with") && method.getReturnType() == MongoDatabase.class) {
+                        return routingView((MongoDatabase) invoke(method, shared, args),
+                                (MongoDatabase) invoke(method, tenant, args));
+                    }
+                    return invoke(method, routesToTenant(method, args) ? tenant : shared, args);
+                });
+    }
+
+    private static boolean routesToTenant(Method method, Object[] args) {
+        if (args == null || !(method.getName().equals("getCollection") || method.getName().equals("createCollection"))) {
+            return false;
+        }
+        for (Object arg : args) {
+            if (arg instanceof String collectionName) {
+                return TenantRouting.TENANT_COLLECTION_NAMES.contains(collectionName);
+            }
+        }
+        return false;
+    }
+
+    private static Object invoke(Method method, MongoDatabase target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ednh.websocket;
+
+import com.ednh.config.ClusterProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default backplane connecting every node running in the same JVM
+ * Several application contexts started side by side form one cluster, which makes
+ * multi-node delivery testable on a single machine; a lone node behaves exactly
+ * like local delivery
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "cluster", name = "backplane", havingValue = "in-process", matchIfMissing = true)
+public class InProcessNotificationBackplane implements NotificationBackplane {
+
+    // Shared by all nodes in this JVM: nodeId -> node, userId -> nodes holding sessions
+    private static final Map<String, LocalNotificationDelivery> NODES = new ConcurrentHashMap<>();
+    private static final Map<String, Set<String>> PRESENCE = new ConcurrentHashMap<>();
+
+    private final ClusterProperties clusterProperties;
+    private final LocalNotificationDelivery localDelivery;
+
+    @PostConstruct
+    void join() {
+        NODES.put(clusterProperties.getNodeId(), localDelivery);
+        log.info("Node {} joined in-process backplane ({} nodes)", clusterProperties.getNodeId(), NODES.size());
+    }
+
+    @PreDestroy
+    void leave() {
+        String nodeId = clusterProperties.getNodeId();
+        NODES.remove(nodeId);
+        // Per key under the map's lock, so a concurrent connect never lands in a removed set
+        for (String userId : PRESENCE.keySet()) {
+            PRESENCE.computeIfPresent(userId, (id, nodes) -> {
+                nodes.remove(nodeId);
+                return nodes.isEmpty() ? null : nodes;
+            });
+        }
+        log.info("Node {} left in-process backplane", nodeId);
+    }
+
+    @Override
+    public void publish(String userId, Object payload) {
+        Set<String> nodeIds = PRESENCE.get(userId);
+        if (nodeIds == null) {
+            log.debug("No node holds sessions for user: {}", userId);
+            return;
+        }
+
+        for (String nodeId : nodeIds) {
+            LocalNotificationDelivery node = NODES.get(nodeId);
+            if (node != null) {
+                node.deliver(userId, payload);
+            }
+        }
+    }
+
+    @Override
+    public boolean isUserOnline(String userId) {
+        return PRESENCE.containsKey(userId);
+    }
+
+    @Override
+    public void userConnected(String userId) {
+        // Added inside compute, since a disconnect may drop the set as soon as it is empty
+        PRESENCE.compute(userId, (id, nodes) -> {
+            if (nodes == null) {
+                nodes = ConcurrentHashMap.newKeySet();
+            }
+            nodes.add(clusterProperties.getNodeId());
+            return nodes;
+        });
+    }
+
+    @Override
+    public void userDisconnected(String userId) {
+        PRESENCE.computeIfPresent(userId, (id, nodes) -> {
+            nodes.remove(clusterProperties.getNodeId());
+            return nodes.isEmpty() ? null : nodes;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.ednh.websocket;
+
+import com.ednh.config.WebSocketProperties;
+import com.ednh.dto.response.NotificationPushPayload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Delivers notifications to the sessions and event streams connected to this node
+ * Used by backplane implementations as the final hop. In USER delivery mode frames
+ * are addressed straight to the user's feed subscriptions from the presence map;
+ * in TOPIC mode they go through the simple broker's subscription matching
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalNotificationDelivery {
+
+    public static final String USER_TOPIC_PREFIX = "/topic/notifications/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final PushPayloadCodec payloadCodec;
+    private final PresenceRegistry presenceRegistry;
+    private final WebSocketProperties webSocketProperties;
+    private final NotificationStreamRegistry streamRegistry;
+
+    @Autowired
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    public void deliver(String userId, Object payload) {
+        // The user may have gone offline since the backplane routed here
+        if (!presenceRegistry.isLive(userId)) {
+            return;
+        }
+
+        streamRegistry.deliver(userId, payload);
+        if (presenceRegistry.feedSubscriptions(userId).isEmpty()) {
+            return;
+        }
+
+        if (webSocketProperties.getDeliveryMode() == WebSocketProperties.DeliveryMode.USER) {
+            deliverToSessions(userId, payload);
+        } else {
+            deliverToTopic(userId, payload);
+        }
+    }
+
+    /**
+     * Sends a payload to a single subscription, bypassing the broker
+     */
+    public void sendToSession(String sessionId, String subscriptionId, String destination, Object payload) {
+        boolean binary = presenceRegistry.prefersBinary(sessionId);
+        byte[] body = binary ? payloadCodec.toCbor(payload) : payloadCodec.toJson(payload);
+        sendToSession(sessionId, subscriptionId, destination, body, binary, priorityOf(payload));
+    }
+
+    private void deliverToSessions(String userId, Object payload) {
+        // Encode each format at most once, however many sessions the user has
+        byte[] json = null;
+        byte[] cbor = null;
+        String priority = priorityOf(payload);
+
+        for (PresenceRegistry.FeedSubscription subscription : presenceRegistry.feedSubscriptions(userId)) {
+            byte[] body;
+            if (subscription.binary()) {
+                body = cbor != null ? cbor : (cbor = payloadCodec.toCbor(payload));
+            } else {
+                body = json != null ? json : (json = payloadCodec.toJson(payload));
+            }
+            sendToSession(subscription.sessionId(), subscription.subscriptionId(),
+                    subscription.destination(), body, subscription.binary(), priority);
+        }
+        log.debug("Real-time notification sent to sessions of user: {}", userId);
+    }
+
+    private void deliverToTopic(String userId, Object payload) {
+        String destination = USER_TOPIC_PREFIX + userId;
+
+        // Encode once here instead of once per subscriber in the broker
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        setPriority(accessor, priorityOf(payload));
+        if (presenceRegistry.hasBinarySession(userId)) {
+            accessor.setHeader(PushPayloadCodec.CBOR_BODY_HEADER, payloadCodec.toCbor(payload));
+        }
+        accessor.setLeaveMutable(true);
+
+        messagingTemplate.send(destination,
+                MessageBuilder.createMessage(payloadCodec.toJson(payload), accessor.getMessageHeaders()));
+        log.debug("Real-time notification sent to: {}", destination);
+    }
+
+    private void sendToSession(String sessionId, String subscriptionId, String destination,
+                               byte[] body, boolean binary, String priority) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        setPriority(accessor, priority);
+
+        if (binary) {
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setNativeHeader(PushPayloadCodec.FORMAT_HEADER, PushPayloadCodec.FORMAT_CBOR);
+        } else {
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        }
+
+        clientOutboundChannel.send(MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
+
+    // Lets the outbound slow-consumer guard shed frames without decoding the body
+    private void setPriority(SimpMessageHeaderAccessor accessor, String priority) {
+        if (priority != null) {
+            accessor.setNativeHeader(SlowConsumerGuard.PRIORITY_HEADER, priority);
+        }
+    }
+
+    private String priorityOf(Object payload) {
+        if (payload instanceof NotificationPushPayload push && push.getPriority() != null) {
+            return push.getPriority().name();
+        }
+        return null;
+    }
+}
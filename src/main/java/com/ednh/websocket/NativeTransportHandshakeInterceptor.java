@@ -0,0 +1,34 @@
+package com.ednh.websocket;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Marks sessions opened on the raw WebSocket endpoint
+ * Only those can carry binary frames; SockJS frames are always text, even over its
+ * own WebSocket transport, so CBOR is honoured on marked sessions only
+ */
+public class NativeTransportHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String NATIVE_TRANSPORT_ATTRIBUTE = "ednhNativeTransport";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(NATIVE_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    public static boolean isNativeTransport(Map<String, Object> sessionAttributes) {
+        return sessionAttributes != null && Boolean.TRUE.equals(sessionAttributes.get(NATIVE_TRANSPORT_ATTRIBUTE));
+    }
+}
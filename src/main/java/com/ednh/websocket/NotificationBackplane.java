@@ -0,0 +1,29 @@
+package com.ednh.websocket;
+
+/**
+ * Inter-node delivery backplane for real-time notifications
+ * Routes a payload to the node or nodes holding the user's sessions
+ */
+public interface NotificationBackplane {
+
+    /**
+     * Delivers the payload to every node where the user currently has sessions
+     */
+    void publish(String userId, Object payload);
+
+    /**
+     * Returns whether any node holds a live session for the user
+     * Must be cheap: it is checked before every push
+     */
+    boolean isUserOnline(String userId);
+
+    /**
+     * Announces that this node now holds at least one session for the user
+     */
+    void userConnected(String userId);
+
+    /**
+     * Announces that this node no longer holds any session for the user
+     */
+    void userDisconnected(String userId);
+}
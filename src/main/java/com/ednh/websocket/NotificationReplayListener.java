@@ -0,0 +1,79 @@
+package com.ednh.websocket;
+
+import com.ednh.config.WebSocketProperties;
+import com.ednh.dto.response.NotificationPushPayload;
+import com.ednh.entity.Notification;
+import com.ednh.service.NotificationService;
+import com.ednh.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Replays undelivered notifications when a client subscribes to its feed
+ * Clients send the id of the last notification they saw in a {@code last-seen}
+ * header, so a reconnect only costs the notifications missed while offline
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationReplayListener {
+
+    public static final String LAST_SEEN_HEADER = "last-seen";
+
+    private final NotificationService notificationService;
+    private final LocalNotificationDelivery localDelivery;
+    private final WebSocketProperties webSocketProperties;
+
+    @Async
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String userId = PresenceRegistry.userIdOf(event.getUser());
+        String destination = accessor.getDestination();
+
+        if (userId == null || !PresenceRegistry.isFeedDestination(userId, destination)) {
+            return;
+        }
+
+        TenantContext.runAs(TenantContext.tenantOf(event.getUser()), () -> replay(userId, accessor, destination));
+    }
+
+    private void replay(String userId, StompHeaderAccessor accessor, String destination) {
+        WebSocketProperties.Replay replay = webSocketProperties.getReplay();
+        String cursor = accessor.getFirstNativeHeader(LAST_SEEN_HEADER);
+        if (cursor == null || !ObjectId.isValid(cursor)) {
+            cursor = new ObjectId(Date.from(Instant.now().minus(replay.getWindow()))).toHexString();
+        }
+
+        int replayed = 0;
+        while (replayed < replay.getMaxNotifications()) {
+            int limit = Math.min(replay.getBatchSize(), replay.getMaxNotifications() - replayed);
+            List<Notification> batch = notificationService.getUndeliveredAfter(userId, cursor, limit);
+
+            for (Notification notification : batch) {
+                localDelivery.sendToSession(accessor.getSessionId(), accessor.getSubscriptionId(),
+                        destination, NotificationPushPayload.fromNotification(notification));
+            }
+
+            replayed += batch.size();
+            if (batch.size() < limit) {
+                break;
+            }
+            cursor = batch.get(batch.size() - 1).getId();
+        }
+
+        if (replayed > 0) {
+            log.info("Replayed {} undelivered notifications to user: {}", replayed, userId);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.ednh.websocket;
+
+import com.ednh.dto.response.NotificationPushPayload;
+import com.ednh.entity.Notification;
+import com.ednh.service.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events streams open on this node, keyed by user
+ * Streams run on servlet async support, so an idle stream holds no request thread.
+ * Live events and keep-alives are queued per stream and written by a small writer pool,
+ * so a slow client never blocks the dispatcher or the scheduler; a stream whose queue
+ * fills up has fallen behind and is completed. An open stream makes its user live in the
+ * {@link PresenceRegistry} like a feed subscription.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationStreamRegistry {
+
+    public static final String NOTIFICATION_EVENT = "notification";
+
+    private final PresenceRegistry presenceRegistry;
+    private final NotificationService notificationService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notifications.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${notifications.stream.replay-batch-size:100}")
+    private int replayBatchSize;
+
+    @Value("${notifications.stream.replay-max:1000}")
+    private int replayMax;
+
+    @Value("${notifications.stream.max-pending-events:64}")
+    private int maxPendingEvents;
+
+    @Value("${notifications.stream.writer-threads:4}")
+    private int writerThreads;
+
+    private final Map<String, Set<Stream>> streamsByUser = new ConcurrentHashMap<>();
+
+    private ExecutorService writers;
+    private Counter fellBehind;
+
+    @PostConstruct
+    void start() {
+        writers = Executors.newFixedThreadPool(writerThreads, new CustomizableThreadFactory("sse-writer-"));
+        fellBehind = Counter.builder("ednh.sse.fell_behind")
+                .description("Event streams completed because their send queue was full")
+                .register(meterRegistry);
+        Gauge.builder("ednh.sse.streams", streamsByUser, streams -> streams.values().stream().mapToInt(Set::size).sum())
+                .description("Open notification event streams on this node")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writers.shutdownNow();
+        try {
+            writers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public SseEmitter open(String userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Stream stream = new Stream(userId, emitter);
+        streamsByUser.compute(userId, (id, streams) -> {
+            if (streams == null) {
+                streams = ConcurrentHashMap.newKeySet();
+            }
+            streams.add(stream);
+            return streams;
+        });
+        presenceRegistry.streamOpened(userId);
+
+        // Completion also follows a timeout or an error, so this is the single cleanup path
+        emitter.onCompletion(() -> close(stream));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> emitter.complete());
+
+        log.debug("Event stream opened for user: {}", userId);
+        return emitter;
+    }
+
+    /**
+     * Sends notifications created after the client's Last-Event-ID
+     * Runs on its own async thread and writes directly, since a replay may exceed the
+     * live queue. Live events may interleave with the replay; clients dedupe by event id
+     */
+    @Async
+    public void replay(String userId, SseEmitter emitter, String lastEventId) {
+        String cursor = lastEventId;
+        int replayed = 0;
+
+        while (replayed < replayMax) {
+            int limit = Math.min(replayBatchSize, replayMax - replayed);
+            List<Notification> batch = notificationService.getNotificationsAfter(userId, cursor, limit);
+
+            for (Notification notification : batch) {
+                if (!write(emitter, notificationEvent(NotificationPushPayload.fromNotification(notification)))) {
+                    return;
+                }
+            }
+
+            replayed += batch.size();
+            if (batch.size() < limit) {
+                break;
+            }
+            cursor = batch.get(batch.size() - 1).getId();
+        }
+
+        if (replayed > 0) {
+            log.info("Replayed {} notifications to event stream of user: {}", replayed, userId);
+        }
+    }
+
+    /**
+     * Queues the payload on each of the user's streams; never blocks on the client
+     */
+    public void deliver(String userId, Object payload) {
+        Set<Stream> streams = streamsByUser.get(userId);
+        if (streams == null) {
+            return;
+        }
+
+        for (Stream stream : streams) {
+            stream.enqueue(notificationEvent(payload));
+        }
+    }
+
+    /**
+     * Comment frames keep idle streams from being cut by proxies and surface dead clients
+     */
+    @Scheduled(fixedDelayString = "${notifications.stream.keepalive:25s}")
+    public void keepAlive() {
+        for (Set<Stream> streams : streamsByUser.values()) {
+            for (Stream stream : streams) {
+                stream.enqueue(SseEmitter.event().comment("keepalive"));
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder notificationEvent(Object payload) {
+        SseEmitter.SseEventBuilder event = SseEmitter.event()
+                .name(NOTIFICATION_EVENT)
+                .data(payload, MediaType.APPLICATION_JSON);
+        if (payload instanceof NotificationPushPayload push && push.getId() != null) {
+            event.id(push.getId());
+        }
+        return event;
+    }
+
+    private static boolean write(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; completing triggers the cleanup callback
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void close(Stream stream) {
+        AtomicBoolean removed = new AtomicBoolean();
+        streamsByUser.computeIfPresent(stream.userId, (id, streams) -> {
+            removed.set(streams.remove(stream));
+            return streams.isEmpty() ? null : streams;
+        });
+
+        if (removed.get()) {
+            presenceRegistry.streamClosed(stream.userId);
+            log.debug("Event stream closed for user: {}", stream.userId);
+        }
+    }
+
+    /**
+     * One open stream and the events waiting to be written to it
+     * At most one writer drains a stream at a time, so events keep their order
+     */
+    private class Stream {
+
+        private final String userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Stream(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(maxPendingEvents);
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (!pending.offer(event)) {
+                fellBehind.increment();
+                log.warn("Event stream of user {} fell behind by {} events, completing it", userId, maxPendingEvents);
+                pending.clear();
+                // Stop queueing now rather than when the container reports completion
+                close(this);
+                emitter.complete();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = pending.poll()) != null) {
+                    if (!write(emitter, event)) {
+                        pending.clear();
+                        return;
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // An event queued after the last poll but before the flag was cleared
+            if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.ednh.websocket;
 
+import com.ednh.dto.request.NotificationAckRequest;
 import com.ednh.entity.User;
+import com.ednh.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -22,6 +24,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class NotificationWebSocketController {
 
+    private final NotificationService notificationService;
+
     @SubscribeMapping("/notifications/{userId}")
     public Map<String, Object> subscribeToNotifications(
             Principal principal,
@@ -45,8 +49,19 @@ public class NotificationWebSocketController {
         );
     }
 
+    @MessageMapping("/notifications/ack")
+    public void acknowledge(NotificationAckRequest request, Principal principal) {
+        String userId = PresenceRegistry.userIdOf(principal);
+        if (userId == null || request.getIds() == null || request.getIds().isEmpty()) {
+            return;
+        }
+
+        notificationService.acknowledgeDelivery(userId, request.getIds());
+    }
+
+    // Liveness is covered by STOMP heartbeats; this only answers the sending session
     @MessageMapping("/notifications/ping")
-    @SendTo("/topic/notifications/ping")
+    @SendToUser(destinations = "/queue/pong", broadcast = false)
     public Map<String, Object> handlePing(Map<String, Object> message) {
         return Map.of(
                 "type", "pong",
@@ -1,31 +1,34 @@
 package com.ednh.websocket;
 
 import com.ednh.entity.User;
-import com.ednh.service.JwtService;
-import com.ednh.service.UserService;
+import com.ednh.service.JwtPrincipalService;
+import com.ednh.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
-import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 /**
  * WebSocket channel interceptor for JWT authentication
- * Validates JWT tokens for WebSocket connections
+ * Validates JWT tokens for WebSocket connections and binds the user's tenant
+ * while each inbound message is handled
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class NotificationWebSocketHandler implements ChannelInterceptor {
+public class NotificationWebSocketHandler implements ExecutorChannelInterceptor {
 
-    private final JwtService jwtService;
-    private final UserService userService;
+    private final JwtPrincipalService jwtPrincipalService;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -38,15 +41,14 @@ public class NotificationWebSocketHandler implements ChannelInterceptor {
                 String token = authToken.substring(7);
 
                 try {
-                    String username = jwtService.extractUsername(token);
-                    User user = (User) userService.loadUserByUsername(username);
+                    User user = jwtPrincipalService.resolve(token).orElse(null);
 
-                    if (jwtService.isTokenValid(token, user)) {
+                    if (user != null) {
                         Authentication authentication = new UsernamePasswordAuthenticationToken(
                                 user, null, user.getAuthorities());
                         accessor.setUser(authentication);
 
-                        log.info("WebSocket connection authenticated for user: {}", username);
+                        log.info("WebSocket connection authenticated for user: {}", user.getUsername());
                     }
                 } catch (Exception e) {
                     log.error("WebSocket authentication failed: {}", e.getMessage());
@@ -56,8 +58,36 @@ public class NotificationWebSocketHandler implements ChannelInterceptor {
                 log.warn("WebSocket connection attempted without valid Authorization header");
                 return null; // Reject connection
             }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscription(accessor);
         }
 
         return message;
     }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        TenantContext.set(TenantContext.tenantOf(SimpMessageHeaderAccessor.getUser(message.getHeaders())));
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        TenantContext.clear();
+    }
+
+    private void authorizeSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(LocalNotificationDelivery.USER_TOPIC_PREFIX)) {
+            return;
+        }
+
+        // A per-user topic may only be subscribed to by that user
+        String userId = PresenceRegistry.userIdOf(accessor.getUser());
+        if (userId == null || !destination.equals(LocalNotificationDelivery.USER_TOPIC_PREFIX + userId)) {
+            log.warn("Rejected subscription to {} by session {}", destination, accessor.getSessionId());
+            throw new AccessDeniedException("Not allowed to subscribe to " + destination);
+        }
+    }
 }
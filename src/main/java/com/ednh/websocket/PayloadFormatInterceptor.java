@@ -0,0 +1,41 @@
+package com.ednh.websocket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Client outbound interceptor that swaps in the CBOR body for sessions that negotiated it
+ * Both encodings are produced once per notification, not once per session
+ */
+@Component
+@RequiredArgsConstructor
+public class PayloadFormatInterceptor implements ChannelInterceptor {
+
+    private final PresenceRegistry presenceRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        Object cborBody = message.getHeaders().get(PushPayloadCodec.CBOR_BODY_HEADER);
+        if (cborBody == null) {
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.removeHeader(PushPayloadCodec.CBOR_BODY_HEADER);
+
+        if (!presenceRegistry.prefersBinary(accessor.getSessionId())) {
+            return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+        }
+
+        // Octet-stream is what makes the STOMP handler emit a binary WebSocket frame
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(PushPayloadCodec.FORMAT_HEADER, PushPayloadCodec.FORMAT_CBOR);
+        return MessageBuilder.createMessage(cborBody, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,265 @@
+package com.ednh.websocket;
+
+import com.ednh.entity.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks STOMP sessions on this node and which users can currently receive pushes
+ * A user is live while one of their sessions is subscribed to their own feed or
+ * they hold an open event stream; live transitions are announced to the backplane
+ * so other nodes can route and skip. The userId -> feed subscriptions map also
+ * drives direct per-session delivery
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PresenceRegistry {
+
+    public static final String USER_QUEUE_DESTINATION = "/user/queue/notifications";
+
+    private final MeterRegistry meterRegistry;
+
+    // Lazy: the backplane's local delivery hop depends on this registry
+    @Autowired
+    @Lazy
+    private NotificationBackplane backplane;
+
+    // sessionId -> userId for every connected session
+    private final Map<String, String> userBySession = new ConcurrentHashMap<>();
+
+    // userId -> connected session ids
+    private final Map<String, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+
+    // sessionId -> the session's feed subscription
+    private final Map<String, FeedSubscription> feedSubscriptions = new ConcurrentHashMap<>();
+
+    // userId -> sessionId -> feed subscription, for sessions subscribed to the user's feed
+    private final Map<String, Map<String, FeedSubscription>> liveSessionsByUser = new ConcurrentHashMap<>();
+
+    // userId -> number of feed subscriptions and event streams keeping the user live
+    private final Map<String, Integer> liveUsers = new ConcurrentHashMap<>();
+
+    // Sessions that negotiated a binary payload format at CONNECT
+    private final Set<String> binarySessions = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("ednh.websocket.sessions", userBySession, Map::size)
+                .description("Connected STOMP sessions on this node")
+                .register(meterRegistry);
+        Gauge.builder("ednh.websocket.users", sessionsByUser, Map::size)
+                .description("Users with at least one connected session on this node")
+                .register(meterRegistry);
+        Gauge.builder("ednh.websocket.users.live", liveUsers, Map::size)
+                .description("Users subscribed to their notification feed on this node")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String userId = userIdOf(event.getUser());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (userId == null || sessionId == null) {
+            return;
+        }
+
+        userBySession.put(sessionId, userId);
+        sessionsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        if (negotiatedBinary(event)) {
+            binarySessions.add(sessionId);
+        }
+        log.debug("Session {} connected for user: {}", sessionId, userId);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String userId = userBySession.get(sessionId);
+        if (userId == null || !isFeedDestination(userId, accessor.getDestination())) {
+            return;
+        }
+
+        FeedSubscription subscription = new FeedSubscription(sessionId, accessor.getSubscriptionId(),
+                accessor.getDestination(), binarySessions.contains(sessionId));
+        feedSubscriptions.put(sessionId, subscription);
+        markLive(userId, subscription);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        FeedSubscription subscription = sessionId != null ? feedSubscriptions.get(sessionId) : null;
+        if (subscription != null && subscription.subscriptionId().equals(accessor.getSubscriptionId())
+                && feedSubscriptions.remove(sessionId, subscription)) {
+            markNotLive(userBySession.get(sessionId), sessionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        // May be published more than once per session, so removal must be idempotent
+        String sessionId = event.getSessionId();
+        String userId = userBySession.remove(sessionId);
+        binarySessions.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+
+        sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (feedSubscriptions.remove(sessionId) != null) {
+            markNotLive(userId, sessionId);
+        }
+        log.debug("Session {} disconnected for user: {}", sessionId, userId);
+    }
+
+    /**
+     * O(1) check whether the user can receive pushes on this node
+     */
+    public boolean isLive(String userId) {
+        return liveUsers.containsKey(userId);
+    }
+
+    public void streamOpened(String userId) {
+        retain(userId);
+    }
+
+    public void streamClosed(String userId) {
+        release(userId);
+    }
+
+    /**
+     * Feed subscriptions of the user on this node, for direct per-session delivery
+     */
+    public Collection<FeedSubscription> feedSubscriptions(String userId) {
+        Map<String, FeedSubscription> subscriptions = liveSessionsByUser.get(userId);
+        return subscriptions != null ? subscriptions.values() : List.of();
+    }
+
+    public boolean prefersBinary(String sessionId) {
+        return sessionId != null && binarySessions.contains(sessionId);
+    }
+
+    public boolean hasBinarySession(String userId) {
+        if (binarySessions.isEmpty()) {
+            return false;
+        }
+        return feedSubscriptions(userId).stream().anyMatch(FeedSubscription::binary);
+    }
+
+    /**
+     * Whether the destination is the user's own notification feed, in either delivery mode
+     */
+    public static boolean isFeedDestination(String userId, String destination) {
+        return USER_QUEUE_DESTINATION.equals(destination)
+                || (LocalNotificationDelivery.USER_TOPIC_PREFIX + userId).equals(destination);
+    }
+
+    private void markLive(String userId, FeedSubscription subscription) {
+        AtomicBoolean added = new AtomicBoolean();
+        liveSessionsByUser.compute(userId, (id, sessions) -> {
+            if (sessions == null) {
+                sessions = new ConcurrentHashMap<>();
+            }
+            added.set(sessions.put(subscription.sessionId(), subscription) == null);
+            return sessions;
+        });
+
+        if (added.get()) {
+            retain(userId);
+        }
+    }
+
+    private void markNotLive(String userId, String sessionId) {
+        if (userId == null) {
+            return;
+        }
+
+        AtomicBoolean removed = new AtomicBoolean();
+        liveSessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            removed.set(sessions.remove(sessionId) != null);
+            return sessions.isEmpty() ? null : sessions;
+        });
+
+        if (removed.get()) {
+            release(userId);
+        }
+    }
+
+    // Announced inside compute so transitions for one user reach the backplane in the order they happen
+    private void retain(String userId) {
+        liveUsers.compute(userId, (id, count) -> {
+            if (count == null) {
+                backplane.userConnected(id);
+                return 1;
+            }
+            return count + 1;
+        });
+    }
+
+    private void release(String userId) {
+        liveUsers.computeIfPresent(userId, (id, count) -> {
+            if (count == 1) {
+                backplane.userDisconnected(id);
+                return null;
+            }
+            return count - 1;
+        });
+    }
+
+    private boolean negotiatedBinary(SessionConnectedEvent event) {
+        Object connect = event.getMessage().getHeaders().get(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        if (!(connect instanceof Message<?> connectMessage)) {
+            return false;
+        }
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(connectMessage);
+        if (!PushPayloadCodec.FORMAT_CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(PushPayloadCodec.FORMAT_HEADER))) {
+            return false;
+        }
+        if (!NativeTransportHandshakeInterceptor.isNativeTransport(accessor.getSessionAttributes())) {
+            log.debug("CBOR requested over SockJS by session {}, sending JSON", accessor.getSessionId());
+            return false;
+        }
+        return true;
+    }
+
+    public record FeedSubscription(String sessionId, String subscriptionId, String destination, boolean binary) {
+    }
+
+    static String userIdOf(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ednh.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encodes real-time payloads for the wire
+ * JSON is the default; clients may negotiate CBOR by sending
+ * {@code payload-format: cbor} on CONNECT over the raw /ws-native endpoint.
+ * SockJS cannot carry binary frames, so sessions on /ws always get JSON
+ */
+@Component
+@RequiredArgsConstructor
+public class PushPayloadCodec {
+
+    public static final String FORMAT_HEADER = "payload-format";
+    public static final String FORMAT_CBOR = "cbor";
+
+    // Internal message header carrying the pre-encoded CBOR body; never written to the wire
+    static final String CBOR_BODY_HEADER = "ednhCborBody";
+
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    public byte[] toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to encode payload as JSON", e);
+        }
+    }
+
+    public byte[] toCbor(Object payload) {
+        try {
+            return cborMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to encode payload as CBOR", e);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.ednh.websocket;
+
+import com.ednh.config.WebSocketProperties;
+import com.ednh.entity.Notification;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the MESSAGE frames each session may have queued but not yet written
+ * Frames are counted when they enter the client outbound channel and again when the
+ * session actually writes them; sessions over the limit are handled by the configured
+ * slow-consumer policy. Frames the policy still admits (higher priorities under DROP_LOW,
+ * non-notification frames under COLLAPSE) are capped by a hard limit that closes the session.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SlowConsumerGuard implements ChannelInterceptor {
+
+    public static final String PRIORITY_HEADER = "priority";
+
+    private static final byte[] MESSAGE_COMMAND = "MESSAGE".getBytes(StandardCharsets.UTF_8);
+
+    private final WebSocketProperties webSocketProperties;
+    private final MeterRegistry meterRegistry;
+
+    // Lazy: delivery depends on the outbound channel this guard is registered on
+    @Autowired
+    @Lazy
+    private LocalNotificationDelivery localDelivery;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Transport decorator factory; wraps each session so written frames can be counted
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), new SessionState(session));
+                super.afterConnectionEstablished(new CountingSession(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        SessionState state = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (state == null) {
+            return message;
+        }
+
+        WebSocketProperties.Outbound outbound = webSocketProperties.getOutbound();
+        int pending = state.pending.get();
+        if (pending >= outbound.getHardMaxPendingFrames()) {
+            meterRegistry.counter("ednh.websocket.slow_consumer", "policy", "hard_limit").increment();
+            disconnect(state);
+            return null;
+        }
+        if (pending >= outbound.getMaxPendingFrames() && !admitSlow(state, accessor)) {
+            return null;
+        }
+
+        state.pending.incrementAndGet();
+        return message;
+    }
+
+    /**
+     * Applies the slow-consumer policy to a frame for a session over the limit
+     * @return whether the frame should still be sent
+     */
+    private boolean admitSlow(SessionState state, SimpMessageHeaderAccessor accessor) {
+        WebSocketProperties.SlowConsumerPolicy policy = webSocketProperties.getOutbound().getSlowConsumerPolicy();
+        String priority = accessor.getFirstNativeHeader(PRIORITY_HEADER);
+
+        switch (policy) {
+            case DROP_LOW -> {
+                if (!Notification.Priority.LOW.name().equals(priority)) {
+                    return true;
+                }
+            }
+            case COLLAPSE -> {
+                // Only notification frames carry a priority; anything else still goes out
+                if (priority == null) {
+                    return true;
+                }
+                state.collapsed.incrementAndGet();
+                state.summarySubscriptionId = accessor.getSubscriptionId();
+                state.summaryDestination = accessor.getDestination();
+            }
+            case DISCONNECT -> disconnect(state);
+        }
+
+        meterRegistry.counter("ednh.websocket.slow_consumer", "policy", policy.name().toLowerCase()).increment();
+        return false;
+    }
+
+    private void onFrameWritten(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        if (state == null) {
+            return;
+        }
+
+        int pending = state.pending.decrementAndGet();
+        if (pending <= webSocketProperties.getOutbound().getMaxPendingFrames() / 2 && state.collapsed.get() > 0) {
+            sendSummary(sessionId, state);
+        }
+    }
+
+    private void sendSummary(String sessionId, SessionState state) {
+        int count = state.collapsed.getAndSet(0);
+        if (count == 0) {
+            return;
+        }
+        localDelivery.sendToSession(sessionId, state.summarySubscriptionId, state.summaryDestination,
+                Map.of("summary", true, "count", count));
+        log.debug("Sent summary of {} collapsed notifications to session {}", count, sessionId);
+    }
+
+    private void disconnect(SessionState state) {
+        if (!state.closing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            log.warn("Closed slow WebSocket session {}", state.session.getId());
+        } catch (IOException e) {
+            log.debug("Failed to close slow session {}: {}", state.session.getId(), e.getMessage());
+        }
+    }
+
+    private static boolean isMessageFrame(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return text.getPayload().startsWith("MESSAGE");
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload();
+            if (payload.remaining() < MESSAGE_COMMAND.length) {
+                return false;
+            }
+            for (int i = 0; i < MESSAGE_COMMAND.length; i++) {
+                if (payload.get(payload.position() + i) != MESSAGE_COMMAND[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static class SessionState {
+        private final WebSocketSession session;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger collapsed = new AtomicInteger();
+        private final AtomicBoolean closing = new AtomicBoolean();
+        private volatile String summarySubscriptionId;
+        private volatile String summaryDestination;
+
+        private SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * Sits under Spring's buffering decorator, so sendMessage runs when a frame is written
+     */
+    private class CountingSession extends WebSocketSessionDecorator {
+
+        private CountingSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+            } finally {
+                if (isMessageFrame(message)) {
+                    onFrameWritten(getId());
+                }
+            }
+        }
+    }
+}
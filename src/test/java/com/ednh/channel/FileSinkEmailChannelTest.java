@@ -0,0 +1,32 @@
+package com.ednh.channel;
+
+import com.ednh.config.ChannelProperties;
+import com.ednh.entity.Notification;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSinkEmailChannelTest {
+
+	private final FileSinkEmailChannel channel = new FileSinkEmailChannel(new ChannelProperties());
+
+	@Test
+	void lineBreaksInTheTitleCannotAddHeaders() {
+		String mail = channel.format(message("Invoice ready\r\nBcc: attacker@example.com\nX-Evil: 1", "Hello"));
+
+		assertThat(mail).contains("Subject: Invoice ready Bcc: attacker@example.com X-Evil: 1\r\n");
+		assertThat(mail.lines()).noneMatch(line -> line.startsWith("Bcc:") || line.startsWith("X-Evil:"));
+	}
+
+	@Test
+	void bodyCannotEndTheMessageEarly() {
+		String mail = channel.format(message("Title", "first\r\n.\r\nTo: someone@example.com\n.hidden"));
+
+		assertThat(mail).endsWith("first\r\n..\r\nTo: someone@example.com\n..hidden\r\n.\r\n");
+	}
+
+	private static ChannelMessage message(String title, String body) {
+		return new ChannelMessage("n-1", "user-1", "alice@example.com", title, body, Notification.Priority.NORMAL);
+	}
+
+}
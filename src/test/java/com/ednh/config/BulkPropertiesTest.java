@@ -0,0 +1,32 @@
+package com.ednh.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.bind.validation.BindValidationException;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkPropertiesTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(
+					ConfigurationPropertiesAutoConfiguration.class, ValidationAutoConfiguration.class))
+			.withUserConfiguration(BulkProperties.class);
+
+	@Test
+	void chunkSizeDefaultsToOneThousand() {
+		contextRunner.run(context ->
+				assertThat(context.getBean(BulkProperties.class).getChunkSize()).isEqualTo(1000));
+	}
+
+	@Test
+	void zeroChunkSizeFailsStartup() {
+		contextRunner.withPropertyValues("notifications.bulk.chunk-size=0").run(context ->
+				assertThat(context).hasFailed()
+						.getFailure().hasRootCauseInstanceOf(BindValidationException.class));
+	}
+
+}
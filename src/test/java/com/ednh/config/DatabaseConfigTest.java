@@ -0,0 +1,65 @@
+package com.ednh.config;
+
+import com.ednh.monitoring.SlowQueryRecorder;
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatabaseConfigTest {
+
+	private final DatabaseConfig config = new DatabaseConfig();
+
+	@BeforeEach
+	void setUp() {
+		MongoClientProperties properties = new MongoClientProperties();
+		properties.getPool().setMaxSize(100);
+		properties.getPool().setMinSize(5);
+		properties.getPool().setMaxWaitTime(Duration.ofSeconds(5));
+		properties.getSocket().setConnectTimeout(Duration.ofSeconds(5));
+		properties.setServerSelectionTimeout(Duration.ofSeconds(10));
+
+		ReflectionTestUtils.setField(config, "mongoClientProperties", properties);
+		ReflectionTestUtils.setField(config, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(config, "slowQueryRecorder", new SlowQueryRecorder(properties));
+	}
+
+	@Test
+	void configuredValuesApplyWhenTheUriSetsNone() {
+		MongoClientSettings settings = config.clientSettings("shared", "mongodb://localhost:27017/ednh").build();
+
+		assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(100);
+		assertThat(settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS)).isEqualTo(5_000);
+		assertThat(settings.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS)).isEqualTo(5_000);
+		assertThat(settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS)).isEqualTo(10_000);
+	}
+
+	@Test
+	void uriOptionsWinOverConfiguredValues() {
+		MongoClientSettings settings = config.clientSettings("shared",
+				"mongodb://localhost:27017/ednh?maxPoolSize=7&waitQueueTimeoutMS=1000&serverSelectionTimeoutMS=2000")
+				.build();
+
+		assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(7);
+		assertThat(settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS)).isEqualTo(1_000);
+		assertThat(settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS)).isEqualTo(2_000);
+		// Options the URI leaves out keep the configured value
+		assertThat(settings.getConnectionPoolSettings().getMinSize()).isEqualTo(5);
+	}
+
+	@Test
+	void monitoringListenersSurviveTheConnectionString() {
+		MongoClientSettings settings = config.clientSettings("shared", "mongodb://localhost:27017/ednh?maxPoolSize=7")
+				.build();
+
+		assertThat(settings.getConnectionPoolSettings().getConnectionPoolListeners()).hasSize(1);
+		assertThat(settings.getCommandListeners()).hasSize(2);
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.ednh.config;
+
+import com.ednh.entity.ChangeVersion;
+import com.ednh.entity.NotificationTombstone;
+import com.ednh.entity.SchedulerLock;
+import com.ednh.tenant.TenantContext;
+import com.ednh.tenant.TenantRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Indexes built from the entities the mapping context is configured with at startup
+ */
+class MongoIndexInitializerTest {
+
+	private static final String TENANT = "acme";
+
+	// Collection name -> indexes created on it
+	private final Map<String, List<IndexDefinition>> created = new HashMap<>();
+	private MongoMappingContext mappingContext;
+	private MongoIndexInitializer initializer;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		TenancyProperties properties = new TenancyProperties();
+		TenancyProperties.Tenant tenant = new TenancyProperties.Tenant();
+		tenant.setMode(TenancyProperties.Mode.COLLECTION);
+		properties.getTenants().put(TENANT, tenant);
+		TenantRouting routing = new TenantRouting(properties);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.getBeanFactory().registerSingleton("tenantRouting", routing);
+		applicationContext.refresh();
+
+		// Same entity set as the running application, without any repository touching the context
+		DatabaseConfig config = new DatabaseConfig();
+		mappingContext = config.mongoMappingContext(config.customConversions(), config.mongoManagedTypes());
+		mappingContext.setApplicationContext(applicationContext);
+		mappingContext.afterPropertiesSet();
+
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.getConverter())
+				.thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+		when(mongoTemplate.getCollectionName(any())).thenAnswer(call ->
+				mappingContext.getRequiredPersistentEntity(call.<Class<?>>getArgument(0)).getCollection());
+		when(mongoTemplate.indexOps(any(Class.class))).thenAnswer(call -> {
+			String collection = mappingContext.getRequiredPersistentEntity(call.<Class<?>>getArgument(0))
+					.getCollection();
+			IndexOperations indexOps = mock(IndexOperations.class);
+			when(indexOps.createIndex(any())).thenAnswer(create -> {
+				created.computeIfAbsent(collection, name -> new ArrayList<>()).add(create.getArgument(0));
+				return "ok";
+			});
+			return indexOps;
+		});
+
+		initializer = new MongoIndexInitializer(mongoTemplate, routing);
+	}
+
+	@Test
+	void templateOnlyEntitiesAreIndexed() {
+		initializer.ensureIndexes((String) null);
+
+		assertThat(indexNames("notification_tombstones")).contains("user_version_id_idx", "deletedAt");
+		assertThat(ttlSeconds("notification_tombstones")).containsExactly(Duration.ofDays(30).toSeconds());
+		// Entities without declared indexes are still known to the mapping context
+		assertThat(knownTypes()).contains(NotificationTombstone.class, ChangeVersion.class, SchedulerLock.class);
+	}
+
+	@Test
+	void tokenHashIndexSkipsLegacyTokensWithoutAHash() {
+		initializer.ensureIndexes((String) null);
+
+		// Legacy tokens may still be there when the index is built
+		assertThat(created.get("refresh_tokens"))
+				.filteredOn(index -> index.getIndexKeys().containsKey("tokenHash"))
+				.singleElement()
+				.satisfies(index -> assertThat(index.getIndexOptions())
+						.containsEntry("unique", true)
+						.containsEntry("sparse", true));
+	}
+
+	@Test
+	void routedTenantGetsTheTombstoneIndexesToo() {
+		initializer.ensureIndexes(TENANT);
+
+		assertThat(indexNames("notification_tombstones_" + TENANT)).contains("user_version_id_idx", "deletedAt");
+		assertThat(created).doesNotContainKey("notification_tombstones");
+		assertThat(TenantContext.get()).isNull();
+	}
+
+	private List<String> indexNames(String collection) {
+		return created.getOrDefault(collection, List.of()).stream()
+				.map(index -> index.getIndexOptions().getString("name"))
+				.toList();
+	}
+
+	private List<Long> ttlSeconds(String collection) {
+		return created.getOrDefault(collection, List.of()).stream()
+				.map(IndexDefinition::getIndexOptions)
+				.filter(options -> options.containsKey("expireAfterSeconds"))
+				.map(options -> ((Number) options.get("expireAfterSeconds")).longValue())
+				.toList();
+	}
+
+	private List<Class<?>> knownTypes() {
+		return mappingContext.getPersistentEntities().stream()
+				.<Class<?>>map(MongoPersistentEntity::getType)
+				.toList();
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.ednh.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientAddressTest {
+
+	private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+	@Test
+	void clientBehindProxiesIsTheFirstForwardedEntry() {
+		request.setRemoteAddr("10.0.0.5");
+		request.addHeader("X-Forwarded-For", "203.0.113.7, 10.0.0.9");
+
+		assertThat(ClientAddress.of(request)).isEqualTo("203.0.113.7");
+	}
+
+	@Test
+	void realIpHeaderIsUsedWithoutForwardedFor() {
+		request.setRemoteAddr("10.0.0.5");
+		request.addHeader("X-Real-IP", "203.0.113.8");
+
+		assertThat(ClientAddress.of(request)).isEqualTo("203.0.113.8");
+	}
+
+	@Test
+	void directClientIsTheSocketPeer() {
+		request.setRemoteAddr("198.51.100.4");
+
+		assertThat(ClientAddress.of(request)).isEqualTo("198.51.100.4");
+	}
+
+}
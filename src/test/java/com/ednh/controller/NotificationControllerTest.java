@@ -0,0 +1,49 @@
+package com.ednh.controller;
+
+import com.ednh.entity.User;
+import com.ednh.service.NotificationService;
+import com.ednh.websocket.NotificationStreamRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationControllerTest {
+
+	private final NotificationService notificationService = mock(NotificationService.class);
+	private final NotificationController controller =
+			new NotificationController(notificationService, mock(NotificationStreamRegistry.class));
+
+	@Test
+	void archiveBoundSplitsNoSecondAtRandom() {
+		User user = User.builder().id("user-1").username("alice").build();
+		LocalDateTime before = LocalDateTime.of(2026, 1, 1, 10, 0, 0, 500_000_000);
+		when(notificationService.archiveAllBefore(eq("user-1"), any())).thenReturn(CompletableFuture.completedFuture(0L));
+
+		controller.archiveAllBefore(user, before, null);
+
+		ArgumentCaptor<ObjectId> bound = ArgumentCaptor.forClass(ObjectId.class);
+		verify(notificationService).archiveAllBefore(eq("user-1"), bound.capture());
+		ObjectId sameSecond = new ObjectId(date(before.withNano(0)));
+		ObjectId previousSecond = new ObjectId(date(before.minusSeconds(1)));
+		// _id < bound: all of the previous second, none of the bound's own second
+		assertThat(previousSecond).isLessThan(bound.getValue());
+		assertThat(sameSecond).isGreaterThan(bound.getValue());
+	}
+
+	private static Date date(LocalDateTime time) {
+		return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+	}
+
+}
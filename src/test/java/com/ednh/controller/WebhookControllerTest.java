@@ -0,0 +1,77 @@
+package com.ednh.controller;
+
+import com.ednh.dto.request.WebhookNotificationRequest;
+import com.ednh.entity.Application;
+import com.ednh.entity.Notification;
+import com.ednh.monitoring.WebhookMetrics;
+import com.ednh.service.ApplicationService;
+import com.ednh.service.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebhookControllerTest {
+
+	private static final String APP_ID = "app-1";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final NotificationService notificationService = mock(NotificationService.class);
+	private final ApplicationService applicationService = mock(ApplicationService.class);
+	private final WebhookController controller = new WebhookController(notificationService, applicationService,
+			new WebhookMetrics(meterRegistry, 10));
+
+	@BeforeEach
+	void setUp() {
+		when(applicationService.findByAppId(APP_ID)).thenReturn(Optional.of(Application.builder().appId(APP_ID).build()));
+		when(applicationService.validateApplicationToken(APP_ID, "token")).thenReturn(true);
+		Notification notification = Notification.builder().id("n-1").userId("user-1").build();
+		when(notificationService.createNotification(any(), any(), any(), any()))
+				.thenReturn(new NotificationService.Ingestion(notification, "queued", "none"));
+	}
+
+	@Test
+	void successIsCountedOnceAfterTheLastStage() {
+		assertThat(receive().getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		assertThat(outcomes("queued")).isEqualTo(1);
+		assertThat(outcomes("rejected")).isZero();
+	}
+
+	@Test
+	void failureAfterStoringIsCountedOnlyAsRejected() {
+		doThrow(new RuntimeException("stats unavailable")).when(applicationService).incrementNotificationCount(anyString());
+
+		assertThat(receive().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+		assertThat(outcomes("queued")).isZero();
+		assertThat(outcomes("rejected")).isEqualTo(1);
+	}
+
+	private ResponseEntity<?> receive() {
+		WebhookNotificationRequest request = WebhookNotificationRequest.builder()
+				.userId("user-1")
+				.title("Build finished")
+				.build();
+		return controller.receiveNotification(APP_ID, "Bearer token", request, new MockHttpServletRequest());
+	}
+
+	private double outcomes(String outcome) {
+		return meterRegistry.find("ednh.webhook.outcome").tag("outcome", outcome).counters().stream()
+				.mapToDouble(Counter::count)
+				.sum();
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.ednh.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeVersionTest {
+
+	private final Instant now = Instant.now();
+	private final Instant abandonedBefore = now.minusSeconds(120);
+
+	@Test
+	void everyVersionCommittedWithoutPendingWrites() {
+		assertThat(counter(7).committedVersion(abandonedBefore)).isEqualTo(7);
+	}
+
+	@Test
+	void committedStopsBelowOldestPendingWrite() {
+		// 5 and 7 are still running, 6 has finished
+		ChangeVersion counter = counter(7, new ChangeVersion.Pending(7, now), new ChangeVersion.Pending(5, now));
+
+		assertThat(counter.committedVersion(abandonedBefore)).isEqualTo(4);
+	}
+
+	@Test
+	void abandonedWritesDoNotHoldBackCommitted() {
+		ChangeVersion counter = counter(7,
+				new ChangeVersion.Pending(5, now.minusSeconds(600)), new ChangeVersion.Pending(7, now));
+
+		assertThat(counter.committedVersion(abandonedBefore)).isEqualTo(6);
+	}
+
+	private ChangeVersion counter(long version, ChangeVersion.Pending... pending) {
+		return ChangeVersion.builder().id("user-1").version(version).pending(List.of(pending)).build();
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.ednh.monitoring;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryShapeTest {
+
+	@Test
+	void findKeepsStructureAndRedactsValues() {
+		BsonDocument command = BsonDocument.parse("""
+				{find: 'notifications', filter: {userId: 'u-42', status: {$in: ['UNREAD', 'READ']},
+				 $or: [{archived: false}, {title: 'secret'}]}, sort: {createdAt: -1}, projection: {data: 0}}""");
+
+		assertThat(QueryShape.of("find", command)).isEqualTo(
+				"filter={userId: ?, status: {$in: ?}, $or: [{archived: ?}, {title: ?}]}"
+						+ " sort={createdAt: -1} projection={data: 0}");
+	}
+
+	@Test
+	void sameShapeForDifferentValues() {
+		BsonDocument first = BsonDocument.parse("{update: 'notifications', updates: [{q: {userId: 'a', read: false}}]}");
+		BsonDocument second = BsonDocument.parse("{update: 'notifications', updates: [{q: {userId: 'b', read: true}}]}");
+
+		assertThat(QueryShape.of("update", first)).isEqualTo(QueryShape.of("update", second));
+	}
+
+	@Test
+	void aggregateRedactsMatchButKeepsGrouping() {
+		BsonDocument command = BsonDocument.parse("""
+				{aggregate: 'notifications', pipeline: [{$match: {appId: 'billing'}},
+				 {$group: {_id: '$type', n: {$sum: 1}}}, {$limit: 10}]}""");
+
+		assertThat(QueryShape.of("aggregate", command)).isEqualTo(
+				"pipeline=[{$match: {appId: ?}}, {$group: {_id: \"$type\", n: {$sum: 1}}}, {$limit: ?}]");
+	}
+
+	@Test
+	void ignoresCommandsThatAreNotQueries() {
+		assertThat(QueryShape.of("insert", BsonDocument.parse("{insert: 'notifications'}"))).isNull();
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.ednh.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryRecorderTest {
+
+	@Test
+	void everyLatencyFallsBelowItsBucketsUpperBound() {
+		for (long micros = 0; micros < 1_000_000; micros++) {
+			long upper = SlowQueryRecorder.ShapeStats.upperBoundMicros(SlowQueryRecorder.ShapeStats.bucketOf(micros));
+			assertThat(upper).isGreaterThan(micros);
+			// Four buckets per power of two: never more than 25% above the value, plus one for the smallest
+			assertThat(upper).isLessThanOrEqualTo(micros + micros / 4 + 1);
+		}
+	}
+
+	@Test
+	void bucketsAreContiguousAndOrdered() {
+		for (int bucket = 0; bucket < 160; bucket++) {
+			long upper = SlowQueryRecorder.ShapeStats.upperBoundMicros(bucket);
+			// The next bucket starts where this one ends
+			assertThat(SlowQueryRecorder.ShapeStats.bucketOf(upper - 1)).isEqualTo(bucket);
+			assertThat(SlowQueryRecorder.ShapeStats.bucketOf(upper)).isEqualTo(bucket + 1);
+		}
+	}
+
+	@Test
+	void extremeLatenciesAreClampedIntoTheHistogram() {
+		assertThat(SlowQueryRecorder.ShapeStats.bucketOf(-5)).isZero();
+		assertThat(SlowQueryRecorder.ShapeStats.bucketOf(Long.MAX_VALUE)).isEqualTo(167);
+	}
+
+	@Test
+	void p99IsTheUpperBoundOfTheBucketHoldingThe99thValue() {
+		SlowQueryRecorder.ShapeStats stats = new SlowQueryRecorder.ShapeStats("find", "notifications", "{}");
+		for (int i = 0; i < 98; i++) {
+			stats.record(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		stats.record(TimeUnit.MILLISECONDS.toNanos(100));
+		stats.record(TimeUnit.MILLISECONDS.toNanos(900));
+
+		// 99th of 100 values is the 100ms one; 100_000us lands in [98_304, 114_688)
+		assertThat(stats.percentileMicros(0.99)).isEqualTo(114_688);
+		assertThat(stats.summary().count()).isEqualTo(100);
+		assertThat(stats.summary().maxMillis()).isEqualTo(900.0);
+	}
+
+}
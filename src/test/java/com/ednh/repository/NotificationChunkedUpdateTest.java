@@ -0,0 +1,69 @@
+package com.ednh.repository;
+
+import com.ednh.entity.Notification;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationChunkedUpdateTest {
+
+	private static final String USER = "user-1";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final NotificationRepositoryImpl repository = new NotificationRepositoryImpl(mongoTemplate);
+
+	@Test
+	void updatesOneChunkPerBoundaryThenTheRemainder() {
+		ObjectId first = new ObjectId();
+		ObjectId second = new ObjectId();
+		// Two full chunks, then fewer than a chunk left
+		when(mongoTemplate.findOne(any(Query.class), eq(Notification.class)))
+				.thenReturn(Notification.builder().id(first.toHexString()).build())
+				.thenReturn(Notification.builder().id(second.toHexString()).build())
+				.thenReturn(null);
+		when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Notification.class)))
+				.thenReturn(UpdateResult.acknowledged(100, 100L, null))
+				.thenReturn(UpdateResult.acknowledged(100, 100L, null))
+				.thenReturn(UpdateResult.acknowledged(7, 7L, null));
+
+		assertThat(repository.markAllRead(USER, 5, 100)).isEqualTo(207);
+
+		ArgumentCaptor<Query> boundaries = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(3)).findOne(boundaries.capture(), eq(Notification.class));
+		assertThat(boundaries.getAllValues()).allSatisfy(query -> {
+			assertThat(query.getSkip()).isEqualTo(99);
+			assertThat(query.getLimit()).isEqualTo(1);
+			assertThat(query.getSortObject()).isEqualTo(new Document("_id", 1));
+		});
+
+		ArgumentCaptor<Query> chunks = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(3)).updateMulti(chunks.capture(), any(UpdateDefinition.class), eq(Notification.class));
+		List<Query> updates = chunks.getAllValues();
+		assertThat(upperBound(updates.get(0))).isEqualTo(first);
+		assertThat(upperBound(updates.get(1))).isEqualTo(second);
+		// The last chunk is the bare predicate, without an upper _id bound
+		assertThat(updates.get(2).getQueryObject()).doesNotContainKey("$and");
+		assertThat(updates.get(2).getQueryObject()).containsEntry("userId", USER);
+	}
+
+	private static Object upperBound(Query chunk) {
+		List<?> and = chunk.getQueryObject().getList("$and", Object.class);
+		return ((Document) ((Document) and.get(1)).get("_id")).get("$lte");
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.ednh.repository;
+
+import com.ednh.entity.Notification;
+import com.ednh.entity.NotificationTombstone;
+import com.mongodb.MongoException;
+import com.mongodb.client.result.DeleteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDeleteTest {
+
+	private static final String USER = "user-1";
+	private static final String ID = "000000000000000000000001";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final BulkOperations tombstones = mock(BulkOperations.class);
+	private final NotificationRepositoryImpl repository = new NotificationRepositoryImpl(mongoTemplate);
+
+	@BeforeEach
+	void setUp() {
+		when(mongoTemplate.find(any(Query.class), eq(Notification.class)))
+				.thenReturn(List.of(Notification.builder().id(ID).userId(USER).build()));
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationTombstone.class))
+				.thenReturn(tombstones);
+		when(tombstones.upsert(anyList())).thenReturn(tombstones);
+	}
+
+	@Test
+	void writesTombstonesBeforeRemoving() {
+		when(mongoTemplate.remove(any(Query.class), eq(Notification.class))).thenReturn(DeleteResult.acknowledged(1));
+
+		assertThat(repository.deleteByIds(USER, List.of(ID), 9)).isEqualTo(1);
+
+		InOrder order = inOrder(tombstones, mongoTemplate);
+		order.verify(tombstones).execute();
+		order.verify(mongoTemplate).remove(any(Query.class), eq(Notification.class));
+	}
+
+	@Test
+	void failedRemovalKeepsTombstonesAndCanBeRepeated() {
+		when(mongoTemplate.remove(any(Query.class), eq(Notification.class)))
+				.thenThrow(new MongoException("connection reset"))
+				.thenReturn(DeleteResult.acknowledged(1));
+
+		assertThatThrownBy(() -> repository.deleteByIds(USER, List.of(ID), 9)).isInstanceOf(MongoException.class);
+		assertThat(repository.deleteByIds(USER, List.of(ID), 10)).isEqualTo(1);
+
+		// Upserts, so the second attempt overwrites rather than failing on the existing tombstone
+		verify(tombstones, times(2)).upsert(anyList());
+		verify(tombstones, times(2)).execute();
+	}
+
+	@Test
+	void nothingOwnedNothingWritten() {
+		when(mongoTemplate.find(any(Query.class), eq(Notification.class))).thenReturn(List.of());
+
+		assertThat(repository.deleteByIds(USER, List.of(ID), 9)).isZero();
+		verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(NotificationTombstone.class));
+		verify(mongoTemplate, never()).remove(any(Query.class), eq(Notification.class));
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.ednh.repository;
+
+import com.ednh.entity.Notification;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDispatchClaimTest {
+
+	private static final String OWNER = "claim-1";
+	private static final String ID = "000000000000000000000001";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final NotificationRepositoryImpl repository = new NotificationRepositoryImpl(mongoTemplate);
+
+	@Test
+	void claimReChecksTheLeaseAndReturnsOnlyWhatItWon() {
+		Notification candidate = Notification.builder().id(ID).build();
+		when(mongoTemplate.find(any(Query.class), eq(Notification.class)))
+				.thenReturn(List.of(candidate))
+				.thenReturn(List.of());
+
+		LocalDateTime before = LocalDateTime.now();
+		List<Notification> claimed = repository.claimDispatchBatch(OWNER, Notification.Priority.HIGH, 50,
+				Duration.ofSeconds(30));
+
+		// Another dispatcher won the race for the only candidate
+		assertThat(claimed).isEmpty();
+
+		ArgumentCaptor<Query> finds = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(2)).find(finds.capture(), eq(Notification.class));
+		Query candidates = finds.getAllValues().get(0);
+		assertThat(candidates.getLimit()).isEqualTo(50);
+		assertThat(candidates.getSortObject()).isEqualTo(new Document("_id", 1));
+		assertThat(candidates.getQueryObject()).containsEntry("dispatchPending", true)
+				.containsEntry("priority", Notification.Priority.HIGH)
+				.containsKey("$or");
+		assertThat(finds.getAllValues().get(1).getQueryObject()).containsEntry("dispatchOwner", OWNER);
+
+		ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+		verify(mongoTemplate).updateMulti(claim.capture(), update.capture(), eq(Notification.class));
+		// The claim filter repeats the lease predicate, so a lease taken in between is not stolen
+		List<?> conditions = claim.getValue().getQueryObject().getList("$and", Object.class);
+		assertThat(conditions).hasSize(2);
+		assertThat((Document) conditions.get(1)).containsKey("$or").containsEntry("dispatchPending", true);
+
+		Document set = (Document) ((Update) update.getValue()).getUpdateObject().get("$set");
+		assertThat(set).containsEntry("dispatchOwner", OWNER);
+		assertThat((LocalDateTime) set.get("dispatchLeaseUntil"))
+				.isAfterOrEqualTo(before.plusSeconds(30))
+				.isBefore(LocalDateTime.now().plusSeconds(31));
+		assertThat((Document) ((Update) update.getValue()).getUpdateObject().get("$inc"))
+				.containsEntry("dispatchAttempts", 1);
+	}
+
+	@Test
+	void nothingClaimableMeansNoUpdate() {
+		when(mongoTemplate.find(any(Query.class), eq(Notification.class))).thenReturn(List.of());
+
+		assertThat(repository.claimDispatchBatch(OWNER, Notification.Priority.LOW, 10, Duration.ofSeconds(30))).isEmpty();
+		verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Notification.class));
+	}
+
+	@Test
+	void completionOnlyTouchesEntriesStillHeldByTheClaim() {
+		when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Notification.class)))
+				.thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+		// The lease ran out and another dispatcher re-claimed the entry
+		assertThat(repository.completeDispatch(OWNER, List.of(ID))).isZero();
+
+		ArgumentCaptor<Query> completed = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+		verify(mongoTemplate).updateMulti(completed.capture(), update.capture(), eq(Notification.class));
+		assertThat(completed.getValue().getQueryObject()).containsEntry("dispatchOwner", OWNER);
+		assertThat((Document) ((Update) update.getValue()).getUpdateObject().get("$unset"))
+				.containsKeys("dispatchPending", "dispatchOwner", "dispatchLeaseUntil");
+	}
+
+}
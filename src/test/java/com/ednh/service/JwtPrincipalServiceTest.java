@@ -0,0 +1,65 @@
+package com.ednh.service;
+
+import com.ednh.entity.User;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtPrincipalServiceTest {
+
+	private static final String TOKEN = "token";
+	private static final String USER_ID = "user-1";
+
+	private final JwtService jwtService = mock(JwtService.class);
+	private final UserCache userCache = mock(UserCache.class);
+	private final JwtPrincipalService service = new JwtPrincipalService(jwtService, userCache, mock(UserService.class));
+
+	@Test
+	void roleAndTenantComeFromTheSnapshotNotTheToken() {
+		accessToken(Map.of(JwtService.ROLE_CLAIM, "ADMIN", JwtService.TENANT_CLAIM, "acme"));
+		when(userCache.get(USER_ID)).thenReturn(User.builder()
+				.id(USER_ID).username("alice").role(User.Role.USER).tenantId("globex").build());
+
+		User principal = service.resolve(TOKEN).orElseThrow();
+
+		assertThat(principal.getRole()).isEqualTo(User.Role.USER);
+		assertThat(principal.getTenantId()).isEqualTo("globex");
+		assertThat(principal.getUsername()).isEqualTo("alice");
+	}
+
+	@Test
+	void inactiveOrMissingUserIsRejected() {
+		accessToken(Map.of(JwtService.ROLE_CLAIM, "USER"));
+		when(userCache.get(USER_ID)).thenReturn(User.builder().id(USER_ID).enabled(false).build());
+		assertThat(service.resolve(TOKEN)).isEmpty();
+
+		when(userCache.get(USER_ID)).thenReturn(null);
+		assertThat(service.resolve(TOKEN)).isEmpty();
+	}
+
+	@Test
+	void refreshTokensAreNotAccessTokens() {
+		when(jwtService.parseClaims(TOKEN)).thenReturn(Jwts.claims()
+				.subject("alice")
+				.add(JwtService.TYPE_CLAIM, "refresh")
+				.add(JwtService.USER_ID_CLAIM, USER_ID)
+				.build());
+
+		assertThat(service.resolve(TOKEN)).isEmpty();
+	}
+
+	private void accessToken(Map<String, Object> claims) {
+		when(jwtService.parseClaims(TOKEN)).thenReturn(Jwts.claims()
+				.subject("alice")
+				.add(JwtService.TYPE_CLAIM, "access")
+				.add(JwtService.USER_ID_CLAIM, USER_ID)
+				.add(claims)
+				.build());
+	}
+
+}
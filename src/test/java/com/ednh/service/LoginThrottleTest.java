@@ -0,0 +1,67 @@
+package com.ednh.service;
+
+import com.ednh.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LoginThrottle throttle = new LoginThrottle(meterRegistry,
+			5, Duration.ofMinutes(1), 3, Duration.ofMinutes(5));
+
+	@Test
+	void accountLimitIgnoresCaseAndSpacing() {
+		throttle.checkLogin("10.0.0.1", "alice@example.com");
+		throttle.checkLogin("10.0.0.2", " Alice@Example.com");
+		throttle.checkLogin("10.0.0.3", "ALICE@EXAMPLE.COM ");
+
+		assertThatThrownBy(() -> throttle.checkLogin("10.0.0.4", "alice@example.com"))
+				.isInstanceOf(TooManyRequestsException.class);
+		assertThat(meterRegistry.get("ednh.auth.throttled").tag("scope", "account").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void addressLimitSpansAccounts() {
+		for (int i = 0; i < 5; i++) {
+			throttle.checkLogin("10.0.0.1", "user-" + i);
+		}
+
+		assertThatThrownBy(() -> throttle.checkLogin("10.0.0.1", "someone-else"))
+				.isInstanceOf(TooManyRequestsException.class);
+		assertThatCode(() -> throttle.checkLogin("10.0.0.2", "someone-else")).doesNotThrowAnyException();
+	}
+
+	@Test
+	void successfulLoginResetsTheAccountOnly() {
+		throttle.checkLogin("10.0.0.1", "alice");
+		throttle.checkLogin("10.0.0.1", "alice");
+		throttle.loginSucceeded("Alice");
+
+		// Three more fit the account limit again
+		throttle.checkLogin("10.0.0.1", "alice");
+		throttle.checkLogin("10.0.0.1", "alice");
+		throttle.checkLogin("10.0.0.1", "alice");
+		// The address has made five attempts and is not reset by a success
+		assertThatThrownBy(() -> throttle.checkLogin("10.0.0.1", "alice"))
+				.isInstanceOf(TooManyRequestsException.class);
+		assertThat(meterRegistry.get("ednh.auth.throttled").tag("scope", "address").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void registrationsCountAgainstTheAddress() {
+		for (int i = 0; i < 5; i++) {
+			throttle.checkAddress("10.0.0.1");
+		}
+
+		assertThatThrownBy(() -> throttle.checkLogin("10.0.0.1", "alice"))
+				.isInstanceOf(TooManyRequestsException.class);
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.ednh.service;
+
+import com.ednh.config.BulkProperties;
+import com.ednh.dto.response.NotificationChangesResponse;
+import com.ednh.dto.response.NotificationResponse;
+import com.ednh.entity.Notification;
+import com.ednh.entity.NotificationTombstone;
+import com.ednh.monitoring.WebhookMetrics;
+import com.ednh.repository.NotificationRepository;
+import com.ednh.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Delta sync cursor paging against an in-memory view of the notifications and tombstones
+ */
+class NotificationChangesTest {
+
+	private static final String USER = "user-1";
+
+	private final List<Notification> notifications = new ArrayList<>();
+	private final List<NotificationTombstone> tombstones = new ArrayList<>();
+	private final NotificationRepository repository = mock(NotificationRepository.class);
+	private final ChangeVersionService changeVersionService = mock(ChangeVersionService.class);
+	private NotificationService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new NotificationService(repository, mock(UserRepository.class), changeVersionService,
+				mock(DigestService.class), new WebhookMetrics(new SimpleMeterRegistry(), 10), new BulkProperties());
+
+		// any() also matches the null afterId of a version-only cursor
+		when(repository.findChangedSince(eq(USER), anyLong(), any(), anyLong(), anyInt())).thenAnswer(call ->
+				after(notifications, Notification::getChangeVersion, Notification::getId, call.getArgument(1),
+						call.getArgument(2), call.getArgument(3), call.getArgument(4)));
+		when(repository.findTombstonesSince(eq(USER), anyLong(), any(), anyLong(), anyInt())).thenAnswer(call ->
+				after(tombstones, NotificationTombstone::getChangeVersion, NotificationTombstone::getId,
+						call.getArgument(1), call.getArgument(2), call.getArgument(3), call.getArgument(4)));
+	}
+
+	@Test
+	void pagesThroughOneVersionCoveringManyDocuments() {
+		// A bulk read at version 3 touched five notifications created at versions 1 and 2
+		for (int i = 1; i <= 5; i++) {
+			notification(id(i), 3, i <= 2 ? 1 : 2);
+		}
+		tombstone(id(6), 3);
+		when(changeVersionService.committed(USER)).thenReturn(3L);
+
+		List<String> seen = new ArrayList<>();
+		String cursor = "2";
+		NotificationChangesResponse page;
+		do {
+			page = service.getChangesSince(USER, cursor, 2);
+			page.getUpdated().forEach(change -> seen.add(change.getId()));
+			page.getDeleted().forEach(seen::add);
+			assertThat(page.getCreated()).isEmpty();
+			cursor = page.getCursor();
+		} while (page.isHasMore());
+
+		assertThat(seen).containsExactly(id(1), id(2), id(3), id(4), id(5), id(6));
+		assertThat(cursor).isEqualTo("3:" + id(6));
+	}
+
+	@Test
+	void createdAndUpdatedWithinTheSameVersionAreSplitByCursor() {
+		notification(id(1), 4, 4);
+		notification(id(2), 4, 4);
+		notification(id(3), 4, 4);
+		when(changeVersionService.committed(USER)).thenReturn(4L);
+
+		NotificationChangesResponse first = service.getChangesSince(USER, "3", 1);
+		NotificationChangesResponse rest = service.getChangesSince(USER, first.getCursor(), 10);
+
+		assertThat(first.getCreated()).extracting(NotificationResponse::getId).containsExactly(id(1));
+		assertThat(rest.getCreated()).extracting(NotificationResponse::getId).containsExactly(id(2), id(3));
+		assertThat(rest.isHasMore()).isFalse();
+	}
+
+	@Test
+	void cursorWaitsForSlowerWriteWithLowerVersion() {
+		// Version 6 has committed while the write stamped 5 is still running
+		notification(id(2), 6, 6);
+		when(changeVersionService.committed(USER)).thenReturn(4L);
+
+		NotificationChangesResponse beforeCommit = service.getChangesSince(USER, "4", 10);
+		assertThat(beforeCommit.getCreated()).isEmpty();
+		assertThat(beforeCommit.getCursor()).isEqualTo("4");
+
+		notification(id(1), 5, 5);
+		when(changeVersionService.committed(USER)).thenReturn(6L);
+
+		NotificationChangesResponse afterCommit = service.getChangesSince(USER, beforeCommit.getCursor(), 10);
+		assertThat(afterCommit.getCreated()).extracting(NotificationResponse::getId).containsExactly(id(1), id(2));
+	}
+
+	@Test
+	void deletionsAreReportedOnce() {
+		tombstone(id(1), 2);
+		tombstone(id(2), 3);
+		when(changeVersionService.committed(USER)).thenReturn(3L);
+
+		NotificationChangesResponse first = service.getChangesSince(USER, "1", 1);
+		NotificationChangesResponse second = service.getChangesSince(USER, first.getCursor(), 1);
+		NotificationChangesResponse third = service.getChangesSince(USER, second.getCursor(), 1);
+
+		assertThat(first.getDeleted()).containsExactly(id(1));
+		assertThat(second.getDeleted()).containsExactly(id(2));
+		assertThat(third.getDeleted()).isEmpty();
+		assertThat(third.getCursor()).isEqualTo(second.getCursor());
+	}
+
+	private void notification(String id, long changeVersion, long createdVersion) {
+		notifications.add(Notification.builder()
+				.id(id)
+				.userId(USER)
+				.title("Notification " + id)
+				.status(Notification.Status.READ)
+				.changeVersion(changeVersion)
+				.createdVersion(createdVersion)
+				.build());
+	}
+
+	private void tombstone(String id, long changeVersion) {
+		tombstones.add(NotificationTombstone.builder().id(id).userId(USER).changeVersion(changeVersion).build());
+	}
+
+	private static String id(int n) {
+		return String.format("%024x", n);
+	}
+
+	private static <T> List<T> after(List<T> source, ToLongFunction<T> version, Function<T, String> id,
+									 long sinceVersion, String afterId, long maxVersion, int limit) {
+		return source.stream()
+				.filter(item -> version.applyAsLong(item) > sinceVersion
+						|| (version.applyAsLong(item) == sinceVersion && afterId != null
+						&& id.apply(item).compareTo(afterId) > 0))
+				.filter(item -> version.applyAsLong(item) <= maxVersion)
+				.sorted(Comparator.comparingLong(version).thenComparing(id))
+				.limit(limit)
+				.toList();
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.ednh.service;
+
+import com.ednh.channel.ChannelDispatcher;
+import com.ednh.config.TenancyProperties;
+import com.ednh.entity.Notification;
+import com.ednh.repository.NotificationRepository;
+import com.ednh.tenant.TenantRouting;
+import com.ednh.websocket.NotificationBackplane;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDispatcherTest {
+
+	private final NotificationRepository repository = mock(NotificationRepository.class);
+	private final NotificationBackplane backplane = mock(NotificationBackplane.class);
+	private final ChannelDispatcher channelDispatcher = mock(ChannelDispatcher.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private NotificationDispatcher dispatcher;
+
+	@BeforeEach
+	void setUp() {
+		dispatcher = new NotificationDispatcher(repository, backplane,
+				channelDispatcher, new TenantRouting(new TenancyProperties()), meterRegistry);
+		ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+		ReflectionTestUtils.setField(dispatcher, "lease", Duration.ofSeconds(30));
+		ReflectionTestUtils.setField(dispatcher, "highWeight", 4);
+		ReflectionTestUtils.setField(dispatcher, "normalWeight", 2);
+		ReflectionTestUtils.setField(dispatcher, "lowWeight", 1);
+		dispatcher.registerMeters();
+		when(repository.claimDispatchBatch(anyString(), any(), anyInt(), any())).thenReturn(List.of());
+	}
+
+	@Test
+	void latencyIsMeasuredFromCreatedAt() {
+		// An id minted an hour before the notification was stored, e.g. supplied by a client or import
+		ObjectId oldId = new ObjectId(Date.from(Instant.now().minusSeconds(3600)));
+		Notification notification = Notification.builder()
+				.id(oldId.toHexString())
+				.userId("user-1")
+				.priority(Notification.Priority.URGENT)
+				.createdAt(LocalDateTime.now().minusSeconds(2))
+				.build();
+		when(repository.claimDispatchBatch(anyString(), eq(Notification.Priority.URGENT), anyInt(), any()))
+				.thenReturn(List.of(notification));
+
+		dispatcher.drainUrgent();
+
+		Timer latency = meterRegistry.get("ednh.outbox.latency").tag("priority", "urgent").timer();
+		assertThat(latency.count()).isEqualTo(1);
+		assertThat(latency.max(TimeUnit.SECONDS)).isBetween(1.0, 60.0);
+	}
+
+	@Test
+	void failedPublishIsLeftForTheLeaseToExpire() {
+		Notification delivered = Notification.builder().id("a").userId("user-1").build();
+		Notification failing = Notification.builder().id("b").userId("user-2").build();
+		when(repository.claimDispatchBatch(anyString(), eq(Notification.Priority.URGENT), anyInt(), any()))
+				.thenReturn(List.of(delivered, failing));
+		when(backplane.isUserOnline(anyString())).thenReturn(true);
+		doThrow(new RuntimeException("node unreachable")).when(backplane).publish(eq("user-2"), any());
+
+		dispatcher.drainUrgent();
+
+		verify(repository).completeDispatch(anyString(), eq(List.of("a")));
+		assertThat(meterRegistry.get("ednh.outbox.failed").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void channelFailureStillCompletesThePublishedBatch() {
+		Notification notification = Notification.builder().id("a").userId("user-1").build();
+		when(repository.claimDispatchBatch(anyString(), eq(Notification.Priority.URGENT), anyInt(), any()))
+				.thenReturn(List.of(notification));
+		when(backplane.isUserOnline("user-1")).thenReturn(true);
+		doThrow(new RuntimeException("preferences unavailable")).when(channelDispatcher).dispatch(any());
+
+		dispatcher.drainUrgent();
+
+		InOrder order = inOrder(repository, channelDispatcher);
+		order.verify(repository).completeDispatch(anyString(), eq(List.of("a")));
+		order.verify(channelDispatcher).dispatch(List.of(notification));
+		assertThat(meterRegistry.get("ednh.outbox.channel_failed").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("ednh.outbox.failed").counter().count()).isZero();
+	}
+
+	@Test
+	void drainingDoesNotRecountTheBacklog() {
+		dispatcher.drainUrgent();
+		dispatcher.drain();
+
+		verify(repository, never()).countPendingDispatch(any());
+		verify(repository, never()).oldestPendingDispatch(any());
+	}
+
+	@Test
+	void statsRefreshUpdatesTheGauges() {
+		when(repository.oldestPendingDispatch(Notification.Priority.LOW))
+				.thenReturn(new ObjectId(Date.from(Instant.now().minusSeconds(90))));
+		when(repository.countPendingDispatch(Notification.Priority.LOW)).thenReturn(42L);
+
+		dispatcher.refreshStats();
+
+		assertThat(meterRegistry.get("ednh.outbox.depth").tag("priority", "low").gauge().value()).isEqualTo(42);
+		assertThat(meterRegistry.get("ednh.outbox.lag").tag("priority", "low").gauge().value()).isGreaterThanOrEqualTo(90);
+		assertThat(meterRegistry.get("ednh.outbox.depth").tag("priority", "high").gauge().value()).isZero();
+	}
+
+}
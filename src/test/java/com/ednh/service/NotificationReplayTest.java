@@ -0,0 +1,168 @@
+package com.ednh.service;
+
+import com.ednh.config.BulkProperties;
+import com.ednh.dto.request.WebhookNotificationRequest;
+import com.ednh.entity.Application;
+import com.ednh.entity.Notification;
+import com.ednh.entity.User;
+import com.ednh.entity.UserPreferences;
+import com.ednh.monitoring.WebhookMetrics;
+import com.ednh.repository.NotificationRepository;
+import com.ednh.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconnect replay and event stream resume against an in-memory view of the stored notifications
+ */
+class NotificationReplayTest {
+
+	private static final String USER = "user-1";
+	private static final String START = new ObjectId(new Date(0)).toHexString();
+
+	private final List<Notification> stored = new ArrayList<>();
+	private final NotificationRepository repository = mock(NotificationRepository.class);
+	private final UserPreferencesService preferencesService = mock(UserPreferencesService.class);
+	private final Application app = Application.builder().appId("app-1").build();
+	private DigestService digestService;
+	private NotificationService service;
+
+	@BeforeEach
+	void setUp() {
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findById(USER)).thenReturn(Optional.of(User.builder().id(USER).build()));
+
+		ChangeVersionService changeVersionService = mock(ChangeVersionService.class);
+		when(changeVersionService.stamp(eq(USER), any())).thenAnswer(call ->
+				call.<LongFunction<?>>getArgument(1).apply(1));
+
+		// LOW priority traffic goes to the digest
+		when(preferencesService.getUserPreferences(USER)).thenReturn(UserPreferences.builder()
+				.userId(USER)
+				.digestEnabled(true)
+				.digestMaxPriority(Notification.Priority.LOW)
+				.build());
+		// Muted titles stand in for any preference that filters a notification
+		when(preferencesService.shouldDeliverNotification(any(Notification.class), any(UserPreferences.class)))
+				.thenAnswer(call -> !call.<Notification>getArgument(0).getTitle().startsWith("Muted"));
+
+		when(repository.save(any(Notification.class))).thenAnswer(call -> {
+			Notification notification = call.getArgument(0);
+			notification.setId(new ObjectId().toHexString());
+			stored.add(notification);
+			return notification;
+		});
+		when(repository.findByUserIdAndDeliveredFalseAndStatusNotAndIdGreaterThanOrderByIdAsc(
+				eq(USER), any(Notification.Status.class), anyString(), any(Pageable.class))).thenAnswer(call ->
+				after(call.getArgument(2), call.getArgument(3), notification -> !notification.isDelivered()
+						&& notification.getStatus() != call.getArgument(1)));
+		when(repository.findByUserIdAndStatusNotAndIdGreaterThanOrderByIdAsc(
+				eq(USER), any(Notification.Status.class), anyString(), any(Pageable.class))).thenAnswer(call ->
+				after(call.getArgument(2), call.getArgument(3),
+						notification -> notification.getStatus() != call.getArgument(1)));
+
+		digestService = new DigestService(repository, changeVersionService, new SimpleMeterRegistry());
+		digestService.registerMeters();
+
+		service = new NotificationService(repository, userRepository, changeVersionService,
+				digestService, new WebhookMetrics(new SimpleMeterRegistry(), 10), new BulkProperties());
+		ReflectionTestUtils.setField(service, "preferencesService", preferencesService);
+	}
+
+	@Test
+	void filteredNotificationIsNotReplayed() {
+		Notification muted = create("Muted build log").notification();
+		Notification invoice = create("Invoice ready").notification();
+
+		assertThat(muted.getStatus()).isEqualTo(Notification.Status.ARCHIVED);
+		assertThat(service.getUndeliveredAfter(USER, START, 10))
+				.extracting(Notification::getId)
+				.containsExactly(invoice.getId());
+	}
+
+	@Test
+	void acknowledgedNotificationIsNotReplayed() {
+		create("Invoice ready").notification().markAsDelivered();
+		Notification reminder = create("Payment reminder").notification();
+
+		assertThat(service.getUndeliveredAfter(USER, START, 10))
+				.extracting(Notification::getId)
+				.containsExactly(reminder.getId());
+	}
+
+	@Test
+	void streamResumeSkipsFilteredButKeepsDelivered() {
+		Notification invoice = create("Invoice ready").notification();
+		invoice.markAsDelivered();
+		create("Muted build log");
+		Notification reminder = create("Payment reminder").notification();
+
+		assertThat(service.getNotificationsAfter(USER, START, 10))
+				.extracting(Notification::getId)
+				.containsExactly(invoice.getId(), reminder.getId());
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = DigestService.EventStorage.class, names = {"FULL", "CONDENSED"})
+	void digestedEventsAreNeitherReplayedNorStreamed(DigestService.EventStorage storage) {
+		ReflectionTestUtils.setField(digestService, "eventStorage", storage);
+		Notification digested = create("Build passed", Notification.Priority.LOW).notification();
+		Notification invoice = create("Invoice ready").notification();
+
+		// The digest stands in for the stored event, so it is not owed a push of its own
+		assertThat(digested.getId()).isNotNull();
+		assertThat(digested.isDelivered()).isTrue();
+		assertThat(service.getUndeliveredAfter(USER, START, 10))
+				.extracting(Notification::getId)
+				.containsExactly(invoice.getId());
+		assertThat(service.getNotificationsAfter(USER, START, 10))
+				.extracting(Notification::getId)
+				.containsExactly(invoice.getId());
+	}
+
+	private NotificationService.Ingestion create(String title) {
+		return create(title, Notification.Priority.NORMAL);
+	}
+
+	private NotificationService.Ingestion create(String title, Notification.Priority priority) {
+		WebhookNotificationRequest request = WebhookNotificationRequest.builder()
+				.userId(USER)
+				.title(title)
+				.message(title)
+				.type(Notification.NotificationType.INFO)
+				.priority(priority)
+				.build();
+		return service.createNotification(request, app, "127.0.0.1", "test");
+	}
+
+	private List<Notification> after(String afterId, Pageable pageable, Predicate<Notification> matches) {
+		return stored.stream()
+				.filter(notification -> notification.getId().compareTo(afterId) > 0)
+				.filter(matches)
+				.sorted(Comparator.comparing(Notification::getId))
+				.limit(pageable.getPageSize())
+				.toList();
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.ednh.service;
+
+import com.ednh.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingServiceTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private PasswordHashingService service;
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		service.shutdown();
+	}
+
+	@Test
+	void hashesOnThePool() {
+		service = new PasswordHashingService(new PlainEncoder(null), meterRegistry, 1, 4, Duration.ofSeconds(5));
+
+		assertThat(service.encode("secret")).isEqualTo("hashed:secret");
+		assertThat(service.matches("secret", "hashed:secret")).isTrue();
+		assertThat(meterRegistry.get("ednh.auth.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void fullQueueIsRejectedWithoutWaiting() throws Exception {
+		service = new PasswordHashingService(new PlainEncoder(release), meterRegistry, 1, 1, Duration.ofSeconds(5));
+		// One hash running, one queued
+		CompletableFuture.runAsync(() -> service.encode("first"));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture.runAsync(() -> service.encode("second"));
+		awaitQueued();
+
+		assertThatThrownBy(() -> service.encode("third")).isInstanceOf(TooManyRequestsException.class);
+		assertThat(meterRegistry.get("ednh.auth.hash.rejected").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void waitIsBoundedByTheQueueTimeout() throws Exception {
+		service = new PasswordHashingService(new PlainEncoder(release), meterRegistry, 1, 4, Duration.ofMillis(100));
+		CompletableFuture.runAsync(() -> service.encode("first"));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+		long start = System.nanoTime();
+		assertThatThrownBy(() -> service.matches("second", "hashed:second"))
+				.isInstanceOf(TooManyRequestsException.class);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+	}
+
+	private void awaitQueued() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (meterRegistry.get("ednh.auth.hash.queue").gauge().value() < 1 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	/**
+	 * Encoder that can be held mid-hash to fill the pool
+	 */
+	private class PlainEncoder implements PasswordEncoder {
+
+		private final CountDownLatch gate;
+
+		private PlainEncoder(CountDownLatch gate) {
+			this.gate = gate;
+		}
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			started.countDown();
+			if (gate != null) {
+				try {
+					gate.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return "hashed:" + rawPassword;
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			return encode(rawPassword).equals(encodedPassword);
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.ednh.service;
+
+import com.ednh.entity.RefreshToken;
+import com.ednh.entity.User;
+import com.ednh.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rotation against an in-memory token store keyed by hash, standing in for the atomic update
+ */
+class RefreshTokenServiceTest {
+
+	private static final String USER_ID = "user-1";
+
+	private final Map<String, RefreshToken> tokensByHash = new HashMap<>();
+	private final RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+	private final JwtService jwtService = mock(JwtService.class);
+	private final RefreshTokenService service = new RefreshTokenService(repository, jwtService);
+
+	@BeforeEach
+	void setUp() {
+		when(jwtService.getAccessTokenExpiration()).thenReturn(900_000L);
+		when(repository.save(any(RefreshToken.class))).thenAnswer(call -> {
+			RefreshToken token = call.getArgument(0);
+			tokensByHash.put(token.getTokenHash(), token);
+			return token;
+		});
+		when(repository.rotate(anyString(), anyString(), any(LocalDateTime.class))).thenAnswer(call -> {
+			RefreshToken token = tokensByHash.remove(call.<String>getArgument(0));
+			if (token == null || token.isRevoked() || token.isExpired()) {
+				return null;
+			}
+			token.setTokenHash(call.getArgument(1));
+			token.setExpiryDate(call.getArgument(2));
+			tokensByHash.put(token.getTokenHash(), token);
+			return token;
+		});
+	}
+
+	@Test
+	void storesOnlyTheHash() {
+		String token = service.createRefreshToken(User.builder().id(USER_ID).build());
+
+		ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+		verify(repository).save(saved.capture());
+		assertThat(saved.getValue().getTokenHash()).hasSize(64).isNotEqualTo(token);
+		assertThat(saved.getValue().getUserId()).isEqualTo(USER_ID);
+		assertThat(saved.getValue().getExpiryDate()).isAfter(LocalDateTime.now().plusMinutes(100));
+	}
+
+	@Test
+	void rotationReplacesTheTokenAndRejectsReplay() {
+		String first = service.createRefreshToken(User.builder().id(USER_ID).build());
+
+		RefreshTokenService.IssuedToken second = service.rotate(first);
+		assertThat(second.userId()).isEqualTo(USER_ID);
+		assertThat(second.token()).isNotEqualTo(first);
+
+		// The presented token stopped working, the new one carries on the session
+		assertThatThrownBy(() -> service.rotate(first)).isInstanceOf(RuntimeException.class);
+		assertThat(service.rotate(second.token()).userId()).isEqualTo(USER_ID);
+		assertThat(tokensByHash).hasSize(1);
+	}
+
+	@Test
+	void revokedTokenCannotBeRotated() {
+		String token = service.createRefreshToken(User.builder().id(USER_ID).build());
+		tokensByHash.values().forEach(stored -> stored.setRevoked(true));
+
+		assertThatThrownBy(() -> service.rotate(token))
+				.isInstanceOf(RuntimeException.class)
+				.hasMessageContaining("expired or revoked");
+	}
+
+}
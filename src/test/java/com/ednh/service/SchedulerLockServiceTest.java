@@ -0,0 +1,126 @@
+package com.ednh.service;
+
+import com.ednh.config.ClusterProperties;
+import com.ednh.entity.SchedulerLock;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes competing for leases in an in-memory lock collection that applies the
+ * service's own filter, the way the unique _id turns a missed upsert into a duplicate key
+ */
+class SchedulerLockServiceTest {
+
+	private static final String JOB = "refresh-token-janitor";
+	private static final Duration LEASE = Duration.ofMinutes(5);
+
+	private final Map<String, SchedulerLock> locks = new HashMap<>();
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final SchedulerLockService nodeA = new SchedulerLockService(mongoTemplate, node("node-a"));
+	private final SchedulerLockService nodeB = new SchedulerLockService(mongoTemplate, node("node-b"));
+
+	@BeforeEach
+	void setUp() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(SchedulerLock.class))).thenAnswer(call -> {
+			Document filter = call.<Query>getArgument(0).getQueryObject();
+			Document set = (Document) call.<Update>getArgument(1).getUpdateObject().get("$set");
+			String id = filter.getString("_id");
+			SchedulerLock lock = locks.get(id);
+			if (lock != null && !matchesEither(lock, filter.getList("$or", Document.class))) {
+				throw new DuplicateKeyException("E11000 duplicate key error collection: scheduler_locks");
+			}
+			SchedulerLock updated = new SchedulerLock(id, set.getString("owner"),
+					(LocalDateTime) set.get("lockedAt"), (LocalDateTime) set.get("lockedUntil"));
+			locks.put(id, updated);
+			return updated;
+		});
+		when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(SchedulerLock.class)))
+				.thenAnswer(call -> {
+					Document filter = call.<Query>getArgument(0).getQueryObject();
+					SchedulerLock lock = locks.get(filter.getString("_id"));
+					if (lock != null && lock.getOwner().equals(filter.getString("owner"))) {
+						Document set = (Document) call.<Update>getArgument(1).getUpdateObject().get("$set");
+						lock.setLockedUntil((LocalDateTime) set.get("lockedUntil"));
+					}
+					return null;
+				});
+	}
+
+	@Test
+	void onlyOneNodeHoldsTheLease() {
+		assertThat(nodeA.tryAcquire(JOB, LEASE)).isTrue();
+		assertThat(nodeB.tryAcquire(JOB, LEASE)).isFalse();
+		assertThat(locks.get(JOB).getOwner()).isEqualTo("node-a");
+	}
+
+	@Test
+	void holderCanRenewItsOwnLease() {
+		assertThat(nodeA.tryAcquire(JOB, LEASE)).isTrue();
+		LocalDateTime firstUntil = locks.get(JOB).getLockedUntil();
+
+		assertThat(nodeA.tryAcquire(JOB, LEASE)).isTrue();
+		assertThat(locks.get(JOB).getLockedUntil()).isAfterOrEqualTo(firstUntil);
+	}
+
+	@Test
+	void expiredLeaseIsTakenOver() {
+		locks.put(JOB, new SchedulerLock(JOB, "node-a", LocalDateTime.now().minusMinutes(10),
+				LocalDateTime.now().minusMinutes(5)));
+
+		assertThat(nodeB.tryAcquire(JOB, LEASE)).isTrue();
+		assertThat(locks.get(JOB).getOwner()).isEqualTo("node-b");
+	}
+
+	@Test
+	void releaseFreesTheLeaseForOthersButOnlyByItsHolder() {
+		nodeA.tryAcquire(JOB, LEASE);
+
+		nodeB.release(JOB);
+		assertThat(nodeB.tryAcquire(JOB, LEASE)).isFalse();
+
+		nodeA.release(JOB);
+		assertThat(nodeB.tryAcquire(JOB, LEASE)).isTrue();
+	}
+
+	private static boolean matchesEither(SchedulerLock lock, List<Document> alternatives) {
+		for (Document alternative : alternatives) {
+			if (alternative.containsKey("owner") && alternative.getString("owner").equals(lock.getOwner())) {
+				return true;
+			}
+			if (alternative.containsKey("lockedUntil")) {
+				LocalDateTime bound = (LocalDateTime) ((Document) alternative.get("lockedUntil")).get("$lte");
+				if (!lock.getLockedUntil().isAfter(bound)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static ClusterProperties node(String nodeId) {
+		ClusterProperties properties = new ClusterProperties();
+		properties.setNodeId(nodeId);
+		return properties;
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.ednh.service;
+
+import com.ednh.entity.User;
+import com.ednh.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+	private static final String USER_ID = "user-1";
+
+	private final UserRepository repository = mock(UserRepository.class);
+	private final UserService service = new UserService(repository, mock(UserCache.class));
+
+	@BeforeEach
+	void setUp() {
+		when(repository.findByEmail(anyString())).thenReturn(Optional.empty());
+		when(repository.findByUsername(anyString())).thenReturn(Optional.empty());
+	}
+
+	@Test
+	void everyLoginReadsCurrentCredentialsAndFlags() {
+		when(repository.findByEmail("alice@example.com"))
+				.thenReturn(Optional.of(user("alice", "alice@example.com", "hash-1")));
+		service.loadUserByUsername("alice@example.com");
+
+		// Password changed and account disabled on another node
+		User changed = user("alice", "alice@example.com", "hash-2");
+		changed.setEnabled(false);
+		when(repository.findByEmail("alice@example.com")).thenReturn(Optional.of(changed));
+
+		User loaded = (User) service.loadUserByUsername("alice@example.com");
+		assertThat(loaded.getPassword()).isEqualTo("hash-2");
+		assertThat(loaded.isEnabled()).isFalse();
+		verify(repository, never()).findById(anyString());
+	}
+
+	@Test
+	void emailIdentifierIsCaseInsensitive() {
+		when(repository.findByEmail("alice@example.com"))
+				.thenReturn(Optional.of(user("alice", "alice@example.com", "hash")));
+
+		assertThat(service.loadUserByUsername(" Alice@Example.COM ").getUsername()).isEqualTo("alice");
+		verify(repository, never()).findByUsername(anyString());
+	}
+
+	@Test
+	void legacyMixedCaseEmailIsFoundAsStored() {
+		// Registered before emails were stored lower-case
+		when(repository.findByEmail("Dave@Example.com"))
+				.thenReturn(Optional.of(user("dave", "Dave@Example.com", "hash")));
+
+		assertThat(service.loadUserByUsername("Dave@Example.com").getUsername()).isEqualTo("dave");
+	}
+
+	@Test
+	void emailShapedLegacyUsernameFallsBackToUsername() {
+		// Registered before '@' was disallowed in usernames
+		when(repository.findByUsername("bob@legacy"))
+				.thenReturn(Optional.of(user("bob@legacy", "bob@example.com", "hash")));
+
+		assertThat(service.loadUserByUsername("bob@legacy").getUsername()).isEqualTo("bob@legacy");
+	}
+
+	@Test
+	void usernameIdentifierIsNotLookedUpAsEmail() {
+		assertThatThrownBy(() -> service.loadUserByUsername("carol"))
+				.isInstanceOf(UsernameNotFoundException.class);
+
+		verify(repository).findByUsername("carol");
+		verify(repository, never()).findByEmail(anyString());
+	}
+
+	private static User user(String username, String email, String password) {
+		return User.builder().id(USER_ID).username(username).email(email).password(password).build();
+	}
+
+}
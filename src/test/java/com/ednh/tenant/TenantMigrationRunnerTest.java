@@ -0,0 +1,102 @@
+package com.ednh.tenant;
+
+import com.ednh.config.MongoIndexInitializer;
+import com.ednh.config.TenancyProperties;
+import com.ednh.entity.User;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TenantMigrationRunnerTest {
+
+	private static final String TENANT = "acme";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final Map<String, Document> filtersBySource = new HashMap<>();
+	private final List<String> users = new ArrayList<>();
+	private TenantMigrationRunner runner;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		TenancyProperties properties = new TenancyProperties();
+		TenancyProperties.Tenant tenant = new TenancyProperties.Tenant();
+		tenant.setMode(TenancyProperties.Mode.COLLECTION);
+		properties.getTenants().put(TENANT, tenant);
+		TenantRouting routing = new TenantRouting(properties);
+
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+		when(mongoTemplate.getConverter())
+				.thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+		when(mongoTemplate.getCollectionName(any())).thenAnswer(call ->
+				TenantRouting.TENANT_COLLECTIONS.get(call.<Class<?>>getArgument(0)) + routing.collectionSuffix());
+		when(mongoTemplate.find(any(Query.class), eq(User.class))).thenAnswer(call -> {
+			// One page of users, then none
+			List<User> page = users.stream().map(id -> User.builder().id(id).build()).toList();
+			users.clear();
+			return page;
+		});
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), anyString())).thenAnswer(call -> {
+			filtersBySource.put(call.getArgument(2), call.<Query>getArgument(0).getQueryObject());
+			return List.of();
+		});
+		when(mongoTemplate.getCollection(anyString())).thenReturn(mock(MongoCollection.class));
+
+		runner = new TenantMigrationRunner(mongoTemplate, routing, mock(MongoIndexInitializer.class),
+				mock(ApplicationContext.class));
+		ReflectionTestUtils.setField(runner, "batchSize", 100);
+		runner.createQueryMapper();
+	}
+
+	@Test
+	void selectsEveryCollectionByTheTenantsUsers() {
+		String userId = new ObjectId().toHexString();
+		users.add(userId);
+
+		runner.migrate(TENANT);
+
+		// Notifications and preferences need not carry a tenantId to be moved
+		assertThat(filtersBySource.get("notifications")).isEqualTo(userIdIn(userId));
+		assertThat(filtersBySource.get("user_preferences")).isEqualTo(userIdIn(userId));
+		assertThat(filtersBySource.get("notification_tombstones")).isEqualTo(userIdIn(userId));
+		// Change versions are keyed by user id, stored as an ObjectId
+		assertThat(filtersBySource.get("change_versions")).isEqualTo(
+				new Document("_id", new Document("$in", List.of(new ObjectId(userId)))));
+	}
+
+	@Test
+	void tenantWithoutUsersMovesNothing() {
+		runner.migrate(TENANT);
+
+		assertThat(filtersBySource).isEmpty();
+	}
+
+	private static Document userIdIn(String userId) {
+		return new Document("userId", new Document("$in", List.of(userId)));
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.ednh.tenant;
+
+import com.ednh.config.TenancyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantRoutingTest {
+
+	private final TenantRouting routing = new TenantRouting(properties());
+
+	@Test
+	void onlyCollectionTenantsGetASuffix() {
+		assertThat(routing.collectionSuffix()).isEmpty();
+		assertThat(TenantContext.callAs("acme", routing::collectionSuffix)).isEqualTo("_acme");
+		assertThat(TenantContext.callAs("globex", routing::collectionSuffix)).isEmpty();
+		assertThat(TenantContext.callAs("unlisted", routing::collectionSuffix)).isEmpty();
+		assertThat(TenantContext.get()).isNull();
+	}
+
+	@Test
+	void unlistedTenantsShareTheDefaultCollections() {
+		assertThat(routing.modeOf("unlisted")).isEqualTo(TenancyProperties.Mode.SHARED);
+		assertThat(routing.modeOf(null)).isEqualTo(TenancyProperties.Mode.SHARED);
+	}
+
+	@Test
+	void partitionsListSharedCollectionsThenRoutedTenants() {
+		assertThat(routing.routedTenants()).containsExactly("acme", "globex");
+		assertThat(routing.partitions()).isEqualTo(Arrays.asList(null, "acme", "globex"));
+	}
+
+	private static TenancyProperties properties() {
+		TenancyProperties properties = new TenancyProperties();
+		properties.getTenants().put("globex", tenant(TenancyProperties.Mode.DATABASE));
+		properties.getTenants().put("acme", tenant(TenancyProperties.Mode.COLLECTION));
+		properties.getTenants().put("initech", tenant(TenancyProperties.Mode.SHARED));
+		return properties;
+	}
+
+	private static TenancyProperties.Tenant tenant(TenancyProperties.Mode mode) {
+		TenancyProperties.Tenant tenant = new TenancyProperties.Tenant();
+		tenant.setMode(mode);
+		return tenant;
+	}
+
+}
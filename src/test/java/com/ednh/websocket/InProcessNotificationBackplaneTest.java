@@ -0,0 +1,148 @@
+package com.ednh.websocket;
+
+import com.ednh.config.ClusterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Two nodes sharing the in-process backplane, each with its own presence registry
+ */
+class InProcessNotificationBackplaneTest {
+
+	private static final String USER = "user-1";
+	private static final Map<String, String> PAYLOAD = Map.of("t", "Invoice ready");
+
+	private Node nodeA;
+	private Node nodeB;
+
+	@BeforeEach
+	void setUp() {
+		nodeA = new Node("node-a");
+		nodeB = new Node("node-b");
+	}
+
+	@AfterEach
+	void tearDown() {
+		nodeA.backplane.leave();
+		nodeB.backplane.leave();
+	}
+
+	@Test
+	void publishReachesOnlyTheNodeHoldingTheUser() {
+		nodeA.presence.streamOpened(USER);
+
+		nodeB.backplane.publish(USER, PAYLOAD);
+
+		assertThat(nodeB.backplane.isUserOnline(USER)).isTrue();
+		verify(nodeA.delivery).deliver(USER, PAYLOAD);
+		verify(nodeB.delivery, never()).deliver(anyString(), any());
+	}
+
+	@Test
+	void userOnBothNodesGetsBoth() {
+		nodeA.presence.streamOpened(USER);
+		nodeB.presence.streamOpened(USER);
+
+		nodeA.backplane.publish(USER, PAYLOAD);
+
+		verify(nodeA.delivery).deliver(USER, PAYLOAD);
+		verify(nodeB.delivery).deliver(USER, PAYLOAD);
+	}
+
+	@Test
+	void lastSessionClosedTakesTheUserOffline() {
+		nodeA.presence.streamOpened(USER);
+		nodeB.presence.streamOpened(USER);
+
+		nodeA.presence.streamClosed(USER);
+		assertThat(nodeA.backplane.isUserOnline(USER)).isTrue();
+
+		nodeB.presence.streamClosed(USER);
+		assertThat(nodeA.backplane.isUserOnline(USER)).isFalse();
+		nodeA.backplane.publish(USER, PAYLOAD);
+		verify(nodeA.delivery, never()).deliver(anyString(), any());
+		verify(nodeB.delivery, never()).deliver(anyString(), any());
+	}
+
+	@Test
+	void nodeLeavingDropsItsPresence() {
+		nodeB.presence.streamOpened(USER);
+
+		nodeB.backplane.leave();
+
+		assertThat(nodeA.backplane.isUserOnline(USER)).isFalse();
+	}
+
+	@Test
+	void connectRacingTheLastDisconnectOfAnotherNodeStaysOnline() throws Exception {
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			for (int i = 0; i < 2_000; i++) {
+				nodeA.backplane.userConnected(USER);
+				CyclicBarrier start = new CyclicBarrier(2);
+				Future<?> disconnect = threads.submit(() -> {
+					start.await();
+					nodeA.backplane.userDisconnected(USER);
+					return null;
+				});
+				Future<?> connect = threads.submit(() -> {
+					start.await();
+					nodeB.backplane.userConnected(USER);
+					return null;
+				});
+				disconnect.get(5, TimeUnit.SECONDS);
+				connect.get(5, TimeUnit.SECONDS);
+
+				assertThat(nodeA.backplane.isUserOnline(USER)).as("iteration %d", i).isTrue();
+				nodeB.backplane.userDisconnected(USER);
+			}
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	void leavingKeepsUsersOfOtherNodes() {
+		nodeA.backplane.userConnected(USER);
+		nodeA.backplane.userConnected("user-2");
+		nodeB.backplane.userConnected(USER);
+
+		nodeA.backplane.leave();
+
+		assertThat(nodeB.backplane.isUserOnline(USER)).isTrue();
+		assertThat(nodeB.backplane.isUserOnline("user-2")).isFalse();
+	}
+
+	private static class Node {
+
+		private final LocalNotificationDelivery delivery = mock(LocalNotificationDelivery.class);
+		private final PresenceRegistry presence = new PresenceRegistry(new SimpleMeterRegistry());
+		private final InProcessNotificationBackplane backplane;
+
+		private Node(String nodeId) {
+			ClusterProperties properties = new ClusterProperties();
+			properties.setNodeId(nodeId);
+			backplane = new InProcessNotificationBackplane(properties, delivery);
+			ReflectionTestUtils.setField(presence, "backplane", backplane);
+			backplane.join();
+		}
+	}
+
+}
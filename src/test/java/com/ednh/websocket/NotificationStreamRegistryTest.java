@@ -0,0 +1,74 @@
+package com.ednh.websocket;
+
+import com.ednh.service.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class NotificationStreamRegistryTest {
+
+	private final PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	// Accepts drain tasks but never runs them, like writers stuck on slow clients
+	private final ExecutorService stalledWriters = mock(ExecutorService.class);
+	private final NotificationStreamRegistry registry =
+			new NotificationStreamRegistry(presenceRegistry, mock(NotificationService.class), meterRegistry);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(registry, "timeout", Duration.ofMinutes(30));
+		ReflectionTestUtils.setField(registry, "maxPendingEvents", 4);
+		ReflectionTestUtils.setField(registry, "writerThreads", 1);
+		registry.start();
+		registry.shutdown();
+		ReflectionTestUtils.setField(registry, "writers", stalledWriters);
+	}
+
+	@Test
+	void deliveryQueuesWithoutWritingOnTheCallersThread() {
+		registry.open("alice");
+
+		IntStream.range(0, 4).forEach(i -> registry.deliver("alice", Map.of("n", i)));
+
+		// One drain task for the whole burst, and the stream stays open
+		verify(stalledWriters, times(1)).execute(any());
+		verify(presenceRegistry, never()).streamClosed("alice");
+	}
+
+	@Test
+	void streamThatFallsBehindIsCompleted() {
+		registry.open("alice");
+		registry.open("bob");
+
+		IntStream.range(0, 5).forEach(i -> registry.deliver("alice", Map.of("n", i)));
+		registry.deliver("alice", Map.of("n", 5));
+
+		verify(presenceRegistry, times(1)).streamClosed("alice");
+		verify(presenceRegistry, never()).streamClosed("bob");
+		assertThat(meterRegistry.get("ednh.sse.fell_behind").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("ednh.sse.streams").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void keepAlivesCountTowardsTheQueue() {
+		registry.open("alice");
+
+		IntStream.range(0, 5).forEach(i -> registry.keepAlive());
+
+		verify(presenceRegistry).streamClosed("alice");
+	}
+
+}
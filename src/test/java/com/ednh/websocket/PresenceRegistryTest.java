@@ -0,0 +1,135 @@
+package com.ednh.websocket;
+
+import com.ednh.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PresenceRegistryTest {
+
+	private static final String USER = "user-1";
+
+	private final List<String> announcements = Collections.synchronizedList(new ArrayList<>());
+	private final PresenceRegistry registry = new PresenceRegistry(new SimpleMeterRegistry());
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(registry, "backplane", new RecordingBackplane());
+	}
+
+	@Test
+	void announcesOnlyFirstAndLastStream() {
+		registry.streamOpened(USER);
+		registry.streamOpened(USER);
+		registry.streamClosed(USER);
+		assertThat(registry.isLive(USER)).isTrue();
+
+		registry.streamClosed(USER);
+
+		assertThat(registry.isLive(USER)).isFalse();
+		assertThat(announcements).containsExactly("connected", "disconnected");
+	}
+
+	@Test
+	void concurrentReconnectsAnnounceInOrder() throws InterruptedException {
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int t = 0; t < threads; t++) {
+			executor.execute(() -> {
+				awaitQuietly(start);
+				for (int i = 0; i < 2_000; i++) {
+					registry.streamOpened(USER);
+					registry.streamClosed(USER);
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		// A disconnect overtaking the connect it follows would leave the backplane out of step
+		assertThat(registry.isLive(USER)).isFalse();
+		for (int i = 0; i < announcements.size(); i++) {
+			assertThat(announcements.get(i)).isEqualTo(i % 2 == 0 ? "connected" : "disconnected");
+		}
+		assertThat(announcements).hasSizeGreaterThan(0).last().isEqualTo("disconnected");
+	}
+
+	@Test
+	void cborIsHonouredOnTheNativeEndpointOnly() {
+		registry.onConnected(connected("native", Map.of(NativeTransportHandshakeInterceptor.NATIVE_TRANSPORT_ATTRIBUTE, true)));
+		registry.onConnected(connected("sockjs", Map.of()));
+
+		assertThat(registry.prefersBinary("native")).isTrue();
+		assertThat(registry.prefersBinary("sockjs")).isFalse();
+	}
+
+	private static SessionConnectedEvent connected(String sessionId, Map<String, Object> sessionAttributes) {
+		StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+		connect.setSessionId(sessionId);
+		connect.setSessionAttributes(new HashMap<>(sessionAttributes));
+		connect.setNativeHeader(PushPayloadCodec.FORMAT_HEADER, PushPayloadCodec.FORMAT_CBOR);
+
+		SimpMessageHeaderAccessor ack = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+		ack.setSessionId(sessionId);
+		ack.setHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER,
+				MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+		User user = User.builder().id(USER).username("alice").build();
+		return new SessionConnectedEvent(PresenceRegistryTest.class,
+				MessageBuilder.createMessage(new byte[0], ack.getMessageHeaders()),
+				new UsernamePasswordAuthenticationToken(user, null, List.of()));
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private class RecordingBackplane implements NotificationBackplane {
+
+		@Override
+		public void publish(String userId, Object payload) {
+		}
+
+		@Override
+		public boolean isUserOnline(String userId) {
+			return registry.isLive(userId);
+		}
+
+		@Override
+		public void userConnected(String userId) {
+			announcements.add("connected");
+		}
+
+		@Override
+		public void userDisconnected(String userId) {
+			announcements.add("disconnected");
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.ednh.websocket;
+
+import com.ednh.dto.response.NotificationPushPayload;
+import com.ednh.entity.Notification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reproduces the push payload sizes: the entity as the STOMP converter rendered it,
+ * the compact JSON payload and its CBOR encoding; body bytes only, no STOMP headers
+ */
+class PushPayloadCodecTest {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+	private final PushPayloadCodec codec = new PushPayloadCodec(objectMapper);
+
+	@Test
+	void compactPayloadsAreSmallerThanTheEntity() throws Exception {
+		Notification notification = representative();
+		NotificationPushPayload payload = NotificationPushPayload.fromNotification(notification);
+
+		int entity = objectMapper.writeValueAsBytes(notification).length;
+		int json = codec.toJson(payload).length;
+		int cbor = codec.toCbor(payload).length;
+
+		// Pinned so that any change to the wire format shows up in review
+		assertThat(entity).isEqualTo(661);
+		assertThat(json).isEqualTo(259);
+		assertThat(cbor).isEqualTo(223);
+	}
+
+	@Test
+	void cborDecodesToTheSamePayload() throws Exception {
+		NotificationPushPayload payload = NotificationPushPayload.fromNotification(representative());
+
+		NotificationPushPayload decoded = new CBORMapper().readValue(codec.toCbor(payload), NotificationPushPayload.class);
+
+		assertThat(decoded).usingRecursiveComparison().isEqualTo(payload);
+	}
+
+	private static Notification representative() {
+		LocalDateTime createdAt = LocalDateTime.of(2025, 10, 1, 9, 30, 15, 123_000_000);
+		return Notification.builder()
+				.id("66fbc1a7e4b0a1b2c3d4e5f6")
+				.appId("billing")
+				.userId("66fbc1a7e4b0a1b2c3d4e500")
+				.title("Invoice #1042 is ready")
+				.message("Your invoice for October is ready to download. The amount due is 42.00 EUR.")
+				.type(Notification.NotificationType.INFO)
+				.priority(Notification.Priority.NORMAL)
+				.data(Map.of("invoiceId", "inv-1042", "amount", 42.0, "currency", "EUR"))
+				.tenantId("acme")
+				.sourceIp("203.0.113.7")
+				.userAgent("billing-service/2.3")
+				.createdAt(createdAt)
+				.build();
+	}
+
+}
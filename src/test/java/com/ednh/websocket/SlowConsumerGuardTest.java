@@ -0,0 +1,102 @@
+package com.ednh.websocket;
+
+import com.ednh.config.WebSocketProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlowConsumerGuardTest {
+
+	private static final String SESSION_ID = "session-1";
+
+	private final WebSocketProperties properties = new WebSocketProperties();
+	private final SlowConsumerGuard guard = new SlowConsumerGuard(properties, new SimpleMeterRegistry());
+	private final MessageChannel channel = mock(MessageChannel.class);
+	private final WebSocketSession session = mock(WebSocketSession.class);
+	private WebSocketSession countingSession;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		properties.getOutbound().setMaxPendingFrames(4);
+		properties.getOutbound().setHardMaxPendingFrames(8);
+		when(session.getId()).thenReturn(SESSION_ID);
+
+		WebSocketHandler handler = mock(WebSocketHandler.class);
+		doAnswer(call -> countingSession = call.getArgument(0)).when(handler).afterConnectionEstablished(any());
+		guard.decorate(handler).afterConnectionEstablished(session);
+	}
+
+	@Test
+	void dropLowDropsOnlyLowFramesOverTheLimit() {
+		properties.getOutbound().setSlowConsumerPolicy(WebSocketProperties.SlowConsumerPolicy.DROP_LOW);
+		sendAll(4, "NORMAL");
+
+		assertThat(guard.preSend(frame("LOW"), channel)).isNull();
+		assertThat(guard.preSend(frame("HIGH"), channel)).isNotNull();
+	}
+
+	@Test
+	void dropLowClosesTheSessionAtTheHardLimit() throws Exception {
+		properties.getOutbound().setSlowConsumerPolicy(WebSocketProperties.SlowConsumerPolicy.DROP_LOW);
+		sendAll(8, "HIGH");
+
+		assertThat(guard.preSend(frame("URGENT"), channel)).isNull();
+		assertThat(guard.preSend(frame("URGENT"), channel)).isNull();
+		verify(session, times(1)).close(CloseStatus.SESSION_NOT_RELIABLE);
+	}
+
+	@Test
+	void collapseCapsFramesWithoutPriority() throws Exception {
+		properties.getOutbound().setSlowConsumerPolicy(WebSocketProperties.SlowConsumerPolicy.COLLAPSE);
+		sendAll(8, null);
+
+		assertThat(guard.preSend(frame(null), channel)).isNull();
+		verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+	}
+
+	@Test
+	void writtenFramesFreeTheirSlots() throws Exception {
+		properties.getOutbound().setSlowConsumerPolicy(WebSocketProperties.SlowConsumerPolicy.DROP_LOW);
+		sendAll(4, "NORMAL");
+		countingSession.sendMessage(new TextMessage("MESSAGE\ndestination:/user/queue/notifications\n\n{}\0"));
+
+		assertThat(guard.preSend(frame("LOW"), channel)).isNotNull();
+		verify(session, never()).close(any());
+	}
+
+	private void sendAll(int count, String priority) {
+		IntStream.range(0, count).forEach(i -> assertThat(guard.preSend(frame(priority), channel)).isNotNull());
+	}
+
+	private static Message<byte[]> frame(String priority) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(SESSION_ID);
+		accessor.setSubscriptionId("sub-0");
+		accessor.setDestination(PresenceRegistry.USER_QUEUE_DESTINATION);
+		if (priority != null) {
+			accessor.setNativeHeader(SlowConsumerGuard.PRIORITY_HEADER, priority);
+		}
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+}